@@ -14,9 +14,11 @@
 
 package com.google.devtools.cyclefinder;
 
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Sets;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.file.RegularInputFile;
@@ -28,12 +30,22 @@ import com.google.devtools.j2objc.util.Parser;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
 
 /**
  * A tool for finding possible reference cycles in a Java program.
@@ -138,37 +150,304 @@ public class CycleFinder {
         NameList.createFromFiles(options.getWhitelistFiles(), options.fileEncoding());
     final GraphBuilder graphBuilder = new GraphBuilder(whitelist);
 
-    List<String> sourceFiles = options.getSourceFiles();
-    File strippedDir = stripIncompatible(sourceFiles, parser);
+    if (options.getCacheFile() != null) {
+      visitSourceFilesIncrementally(parser, graphBuilder);
+    } else if (options.parseShards() > 1) {
+      visitSourceFilesInShards(parser, graphBuilder);
+    } else {
+      List<String> sourceFiles = options.getSourceFiles();
+      File strippedDir = stripIncompatible(sourceFiles, parser);
+
+      Parser.Handler handler = new Parser.Handler() {
+        @Override
+        public void handleParsedUnit(String path, CompilationUnit unit) {
+          new LambdaTypeElementAdder(unit).run();
+          new OuterReferenceResolver(unit).run();
+          graphBuilder.visitAST(unit);
+        }
+      };
+      parser.parseFiles(sourceFiles, handler, options.sourceVersion());
+
+      FileUtil.deleteTempDir(strippedDir);
+    }
+
+    if (ErrorUtil.errorCount() > 0) {
+      return;
+    }
+
+    // Construct the graph.
+    referenceGraph = graphBuilder.constructGraph().getGraph();
+  }
+
+  /**
+   * Adds the references found in each source file to the graph builder,
+   * reusing the references cached by a previous run for source files that
+   * are unchanged, and don't depend on changed declarations. Parsing the
+   * changed files can invalidate more files, so the files are parsed in
+   * rounds until no more are invalidated.
+   */
+  private void visitSourceFilesIncrementally(Parser parser, GraphBuilder graphBuilder)
+      throws IOException {
+    File cacheFile = new File(options.getCacheFile());
+    ReferenceCache cache = ReferenceCache.load(cacheFile, getCacheFingerprint());
+    Map<String, String> contentHashes = new LinkedHashMap<>();
+    for (String path : options.getSourceFiles()) {
+      contentHashes.put(path, ReferenceCache.hashFile(new File(path)));
+    }
+    cache.retainFiles(contentHashes.keySet());
+
+    Set<String> sourceRoots = new HashSet<>();
+    List<String> paths = cache.getChangedFiles(contentHashes);
+    while (!paths.isEmpty()) {
+      // The cached files aren't parsed, so they're found on their source roots.
+      for (String sourceRoot : cache.getSourceRoots()) {
+        if (sourceRoots.add(sourceRoot)) {
+          parser.addSourcepathEntry(sourceRoot);
+        }
+      }
+      analyzeSourceFiles(paths, contentHashes, parser, graphBuilder, cache);
+      if (ErrorUtil.errorCount() > 0) {
+        return;
+      }
+      paths = cache.getInvalidatedFiles();
+    }
+
+    for (String path : contentHashes.keySet()) {
+      UnitReferences references = cache.getReferences(path);
+      if (references != null) {
+        graphBuilder.addReferences(references);
+      }
+    }
+    cache.save(cacheFile);
+  }
+
+  private void analyzeSourceFiles(List<String> paths, final Map<String, String> contentHashes,
+      Parser parser, final GraphBuilder graphBuilder, final ReferenceCache cache)
+      throws IOException {
+    // The parsed paths differ from the cached ones for stripped files.
+    List<String> parsedPaths = new ArrayList<>(paths);
+    File strippedDir = stripIncompatible(parsedPaths, parser);
+    final Map<String, String> originalPaths = new HashMap<>();
+    for (int i = 0; i < paths.size(); i++) {
+      originalPaths.put(getCanonicalPath(parsedPaths.get(i)), paths.get(i));
+    }
 
     Parser.Handler handler = new Parser.Handler() {
       @Override
       public void handleParsedUnit(String path, CompilationUnit unit) {
         new LambdaTypeElementAdder(unit).run();
         new OuterReferenceResolver(unit).run();
-        graphBuilder.visitAST(unit);
+        String originalPath = originalPaths.get(getCanonicalPath(path));
+        if (originalPath != null) {
+          cache.put(originalPath, contentHashes.get(originalPath),
+              getSourceRoot(originalPath, unit), graphBuilder.analyzeUnit(unit));
+        }
       }
     };
-    parser.parseFiles(sourceFiles, handler, options.sourceVersion());
+    parser.parseFiles(parsedPaths, handler, options.sourceVersion());
 
     FileUtil.deleteTempDir(strippedDir);
+    cache.updateDependencySignatures(paths);
+  }
 
-    if (ErrorUtil.errorCount() > 0) {
-      return;
+  /**
+   * Adds the references found in each source file to the graph builder,
+   * parsing contiguous shards of the source files with separate parsers on a
+   * fork-join pool. Each unit's references are found on their own, so they
+   * are the same whichever shard parsed the unit, and they're added in source
+   * file order once all shards are parsed.
+   */
+  private void visitSourceFilesInShards(Parser parser, final GraphBuilder graphBuilder)
+      throws IOException {
+    List<String> sourceFiles = options.getSourceFiles();
+    final File strippedDir = stripIncompatible(sourceFiles, parser);
+    final Map<String, UnitReferences> unitReferences = new ConcurrentHashMap<>();
+    final Parser.Handler handler = new Parser.Handler() {
+      @Override
+      public void handleParsedUnit(String path, CompilationUnit unit) {
+        new LambdaTypeElementAdder(unit).run();
+        new OuterReferenceResolver(unit).run();
+        unitReferences.put(getCanonicalPath(path), graphBuilder.analyzeUnit(unit));
+      }
+    };
+
+    int shardSize = (sourceFiles.size() + options.parseShards() - 1) / options.parseShards();
+    List<List<String>> shards = Lists.partition(sourceFiles, Math.max(shardSize, 1));
+    ForkJoinPool pool = new ForkJoinPool(options.parseShards());
+    try {
+      // Types declared in other shards are found on the source roots of all
+      // the source files, which are found without resolving any bindings.
+      final Set<String> sourceRoots = ConcurrentHashMap.newKeySet();
+      runShards(pool, shards, Collections.emptySet(), (shard, shardParser) -> {
+        for (String path : shard) {
+          String sourceRoot = getSourceRoot(path, shardParser);
+          if (sourceRoot != null) {
+            sourceRoots.add(sourceRoot);
+          }
+        }
+      });
+      if (ErrorUtil.errorCount() > 0) {
+        return;
+      }
+      runShards(pool, shards, sourceRoots, (shard, shardParser) -> {
+        if (strippedDir != null) {
+          shardParser.prependSourcepathEntry(strippedDir.getPath());
+        }
+        shardParser.parseFiles(shard, handler, options.sourceVersion());
+      });
+    } finally {
+      pool.shutdown();
+      FileUtil.deleteTempDir(strippedDir);
     }
 
-    // Construct the graph.
-    referenceGraph = graphBuilder.constructGraph().getGraph();
+    for (String path : sourceFiles) {
+      UnitReferences references = unitReferences.get(getCanonicalPath(path));
+      if (references != null) {
+        graphBuilder.addReferences(references);
+      }
+    }
+  }
+
+  /**
+   * Runs a task for each shard on the pool with a new parser, which also
+   * finds sources on the specified source roots, and waits for all of them.
+   */
+  private void runShards(ForkJoinPool pool, List<List<String>> shards,
+      Collection<String> sourceRoots, BiConsumer<List<String>, Parser> shardTask) {
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    for (final List<String> shard : shards) {
+      tasks.add(pool.submit(() -> {
+        Parser shardParser = createParser();
+        try {
+          for (String sourceRoot : sourceRoots) {
+            shardParser.addSourcepathEntry(sourceRoot);
+          }
+          shardTask.accept(shard, shardParser);
+        } finally {
+          closeParser(shardParser);
+        }
+      }));
+    }
+    for (ForkJoinTask<?> task : tasks) {
+      task.join();
+    }
+  }
+
+  private static void closeParser(Parser parser) {
+    try {
+      parser.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns a hash of the options that the cached references depend on.
+   */
+  private String getCacheFingerprint() throws IOException {
+    Hasher hasher = Hashing.sha1().newHasher();
+    for (String option : new String[] {
+        options.getSourcepath(), options.getClasspath(), options.getBootclasspath(),
+        options.fileEncoding(), options.sourceVersion().flag() }) {
+      hasher.putString(Strings.nullToEmpty(option), StandardCharsets.UTF_8).putByte((byte) 0);
+    }
+    for (String whitelistFile : options.getWhitelistFiles()) {
+      hasher.putString(ReferenceCache.hashFile(new File(whitelistFile)), StandardCharsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  private static String getCanonicalPath(String path) {
+    try {
+      return new File(path).getCanonicalPath();
+    } catch (IOException e) {
+      return new File(path).getAbsolutePath();
+    }
+  }
+
+  /**
+   * Returns the directory that contains a source file's package directory,
+   * or null if the file isn't in its package directory.
+   */
+  private static String getSourceRoot(String path, CompilationUnit unit) {
+    return getSourceRoot(path, unit.getPackage().isDefaultPackage()
+        ? "" : unit.getPackage().getName().getFullyQualifiedName());
+  }
+
+  /**
+   * Returns the source root of a source file, parsing it without bindings to
+   * find its package, or null if it can't be parsed.
+   */
+  private String getSourceRoot(String path, Parser parser) {
+    RegularInputFile file = new RegularInputFile(path);
+    Parser.ParseResult parseResult;
+    try {
+      parseResult = parser.parseWithoutBindings(file, j2objcOptions.fileUtil().readFile(file));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (parseResult == null) {
+      return null;
+    }
+    String mainTypeName = parseResult.mainTypeName();
+    int lastDot = mainTypeName.lastIndexOf('.');
+    return getSourceRoot(path, lastDot >= 0 ? mainTypeName.substring(0, lastDot) : "");
+  }
+
+  private static String getSourceRoot(String path, String packageName) {
+    File dir = new File(path).getAbsoluteFile().getParentFile();
+    if (!packageName.isEmpty()) {
+      List<String> packageDirs = Splitter.on('.').splitToList(packageName);
+      for (String packageDir : Lists.reverse(packageDirs)) {
+        if (dir == null || !dir.getName().equals(packageDir)) {
+          return null;
+        }
+        dir = dir.getParentFile();
+      }
+    }
+    return dir != null ? dir.getPath() : null;
   }
 
   public List<List<Edge>> findCycles() {
+    if (options.jobs() > 1) {
+      findCyclesInParallel();
+      return cycles;
+    }
     for (ReferenceGraph component :
         referenceGraph.getStronglyConnectedComponents(getSeedNodes(referenceGraph))) {
-      handleStronglyConnectedComponent(component);
+      addCycles(component.findCycles());
     }
     return cycles;
   }
 
+  /**
+   * Finds the same cycles as the sequential search, analyzing independent
+   * components of the graph on a fork-join pool.
+   */
+  private void findCyclesInParallel() {
+    ForkJoinPool pool = new ForkJoinPool(options.jobs());
+    try {
+      List<ForkJoinTask<List<List<Edge>>>> tasks = new ArrayList<>();
+      for (ReferenceGraph component :
+           referenceGraph.getStronglyConnectedComponents(getSeedNodes(referenceGraph), pool)) {
+        tasks.add(pool.submit(() -> component.findCycles()));
+      }
+      for (ForkJoinTask<List<List<Edge>>> task : tasks) {
+        addCycles(task.join());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private void addCycles(List<List<Edge>> componentCycles) {
+    for (List<Edge> cycle : componentCycles) {
+      if (shouldAddCycle(cycle)) {
+        cycles.add(cycle);
+      }
+    }
+  }
+
   private Set<TypeNode> getSeedNodes(ReferenceGraph graph) {
     if (blacklist == null) {
       return graph.getNodes();
@@ -182,22 +461,6 @@ public class CycleFinder {
     return seedNodes;
   }
 
-  private void handleStronglyConnectedComponent(ReferenceGraph subgraph) {
-    // Make sure to find at least one cycle for each type in the SCC.
-    Set<TypeNode> unusedTypes = Sets.newHashSet(subgraph.getNodes());
-    while (!unusedTypes.isEmpty()) {
-      TypeNode root = Iterables.getFirst(unusedTypes, null);
-      assert root != null;
-      List<Edge> cycle = subgraph.findShortestCycle(root);
-      if (shouldAddCycle(cycle)) {
-        cycles.add(cycle);
-      }
-      for (Edge e : cycle) {
-        unusedTypes.remove(e.getOrigin());
-      }
-    }
-  }
-
   public ReferenceGraph getReferenceGraph() {
     return referenceGraph;
   }
@@ -26,7 +26,7 @@ class Edge {
   private final String fieldQualifiedName;
   private final String description;
 
-  private Edge(TypeNode origin, TypeNode target, String fieldQualifiedName, String description) {
+  Edge(TypeNode origin, TypeNode target, String fieldQualifiedName, String description) {
     this.origin = origin;
     this.target = target;
     this.fieldQualifiedName = fieldQualifiedName;
@@ -73,6 +73,10 @@ class Edge {
     return fieldQualifiedName;
   }
 
+  String getDescription() {
+    return description;
+  }
+
   @Override
   public String toString() {
     return origin.getName() + " -> " + description;
@@ -14,10 +14,10 @@
 
 package com.google.devtools.cyclefinder;
 
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
 import com.google.devtools.j2objc.ast.ClassInstanceCreation;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.ast.CreationReference;
@@ -33,12 +33,13 @@ import com.google.devtools.j2objc.ast.UnitTreeVisitor;
 import com.google.devtools.j2objc.util.CaptureInfo;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.TypeUtil;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
@@ -56,19 +57,18 @@ import javax.lang.model.util.SimpleTypeVisitor8;
  */
 public class GraphBuilder {
 
-  private final Map<String, TypeNode> allTypes = new HashMap<>();
   private final NameList whitelist;
   private final ReferenceGraph graph = new ReferenceGraph();
-  private final Map<TypeNode, TypeNode> superclasses = new HashMap<>();
-  private final SetMultimap<TypeNode, TypeNode> subtypes = HashMultimap.create();
-  private final SetMultimap<TypeNode, Edge> possibleOuterEdges = HashMultimap.create();
-  private final Set<TypeNode> hasOuterRef = new HashSet<>();
+  private final UnitReferences references = new UnitReferences();
 
   public GraphBuilder(NameList whitelist) {
     this.whitelist = whitelist;
   }
 
   public GraphBuilder constructGraph() {
+    for (Edge e : references.getEdges()) {
+      addEdge(e);
+    }
     addOuterEdges();
     addSubtypeEdges();
     addSuperclassEdges();
@@ -93,17 +93,17 @@ public class GraphBuilder {
   }
 
   private void addOuterEdges() {
-    for (TypeNode type : hasOuterRef) {
-      for (Edge e : possibleOuterEdges.get(type)) {
+    for (TypeNode type : references.getTypesWithOuterReference()) {
+      for (Edge e : references.getPossibleOuterEdges(type)) {
         addEdge(e);
       }
     }
   }
 
   private void addSubtypeEdges() {
-    for (TypeNode type : allTypes.values()) {
+    for (TypeNode type : references.getTypes()) {
       for (Edge e : ImmutableList.copyOf(graph.getEdges(type))) {
-        Set<TypeNode> targetSubtypes = subtypes.get(e.getTarget());
+        Set<TypeNode> targetSubtypes = references.getSubtypes(e.getTarget());
         Set<TypeNode> whitelisted = new HashSet<>();
         String fieldName = e.getFieldQualifiedName();
         if (fieldName == null) {
@@ -113,7 +113,7 @@ public class GraphBuilder {
           if (whitelist.isWhitelistedTypeForField(fieldName, subtype)
               || whitelist.containsType(subtype)) {
             whitelisted.add(subtype);
-            whitelisted.addAll(subtypes.get(subtype));
+            whitelisted.addAll(references.getSubtypes(subtype));
           }
         }
         for (TypeNode subtype : Sets.difference(targetSubtypes, whitelisted)) {
@@ -124,13 +124,13 @@ public class GraphBuilder {
   }
 
   private void addSuperclassEdges() {
-    for (TypeNode type : allTypes.values()) {
-      TypeNode superclassNode = superclasses.get(type);
+    for (TypeNode type : references.getTypes()) {
+      TypeNode superclassNode = references.getSuperclass(type);
       while (superclassNode != null) {
         for (Edge e : graph.getEdges(superclassNode)) {
           addEdge(Edge.newSuperclassEdge(e, type, superclassNode));
         }
-        superclassNode = superclasses.get(superclassNode);
+        superclassNode = references.getSuperclass(superclassNode);
       }
     }
   }
@@ -179,31 +179,63 @@ public class GraphBuilder {
   }
 
   public void visitAST(CompilationUnit unit) {
-    new Visitor(unit).run();
+    new Visitor(unit, references).run();
+  }
+
+  /**
+   * Returns the references found in a unit on its own, so that they can be
+   * cached and added to a later graph with {@link #addReferences}. Types that
+   * other units also refer to are followed again, so the unit's references
+   * don't depend on which units were visited before it.
+   */
+  UnitReferences analyzeUnit(CompilationUnit unit) {
+    UnitReferences unitReferences = new UnitReferences();
+    Visitor visitor = new Visitor(unit, unitReferences);
+    visitor.run();
+    for (AbstractTypeDeclaration type : unit.getTypes()) {
+      visitor.addDeclaredTypes(type.getTypeElement());
+    }
+    return unitReferences;
+  }
+
+  void addReferences(UnitReferences unitReferences) {
+    references.addAll(unitReferences);
   }
 
   private class Visitor extends UnitTreeVisitor {
 
+    private final UnitReferences references;
     private final CaptureInfo captureInfo;
     private final NameUtil nameUtil;
 
-    private Visitor(CompilationUnit unit) {
+    private Visitor(CompilationUnit unit, UnitReferences references) {
       super(unit);
+      this.references = references;
       captureInfo = unit.getEnv().captureInfo();
       nameUtil = new NameUtil(typeUtil);
     }
 
     private TypeNode createNode(TypeMirror type, String signature, String name) {
       TypeNode node = new TypeNode(signature, name, NameUtil.getQualifiedName(type));
-      allTypes.put(signature, node);
+      references.addType(node);
+      if (TypeUtil.isDeclaredType(type)) {
+        addDependency(TypeUtil.asTypeElement(type));
+      }
       followType(type, node);
       return node;
     }
 
+    private void addDependency(TypeElement element) {
+      String qualifiedName = element.getQualifiedName().toString();
+      if (!qualifiedName.isEmpty()) {
+        references.addDependency(qualifiedName);
+      }
+    }
+
     private TypeNode getOrCreateNode(TypeMirror type) {
       type = getElementType(type);
       String signature = nameUtil.getSignature(type);
-      TypeNode node = allTypes.get(signature);
+      TypeNode node = references.getType(signature);
       if (node != null) {
         return node;
       }
@@ -235,10 +267,10 @@ public class GraphBuilder {
       for (TypeMirror supertype : supertypes) {
         TypeNode supertypeNode = getOrCreateNode(supertype);
         if (supertypeNode != null) {
-          subtypes.put(supertypeNode, node);
+          references.addSubtype(supertypeNode, node);
           if (TypeUtil.isDeclaredType(supertype)
               && TypeUtil.getDeclaredTypeKind(supertype).isClass()) {
-            superclasses.put(node, supertypeNode);
+            references.setSuperclass(node, supertypeNode);
           }
         }
       }
@@ -269,7 +301,7 @@ public class GraphBuilder {
             && !typeUtil.isAssignable(type, fieldType)
             && !ElementUtil.isWeakReference(field)
             && !ElementUtil.isRetainedWithField(field)) {
-          addEdge(Edge.newFieldEdge(node, target, fieldName));
+          references.addEdge(Edge.newFieldEdge(node, target, fieldName));
         }
       }
     }
@@ -287,7 +319,7 @@ public class GraphBuilder {
           && !elementUtil.isWeakOuterType(element)
           && !whitelist.containsType(enclosingTypeNode)
           && !whitelist.hasOuterForType(typeNode)) {
-        possibleOuterEdges.put(
+        references.addPossibleOuterEdge(
             declarationType, Edge.newOuterClassEdge(typeNode, enclosingTypeNode));
       }
     }
@@ -298,7 +330,7 @@ public class GraphBuilder {
         TypeNode targetNode = getOrCreateNode(capturedVarElement.asType());
         if (targetNode != null && !whitelist.containsType(targetNode)
             && !ElementUtil.isWeakReference(capturedVarElement)) {
-          addEdge(Edge.newCaptureEdge(
+          references.addEdge(Edge.newCaptureEdge(
               typeNode, targetNode, ElementUtil.getName(capturedVarElement)));
         }
       }
@@ -321,13 +353,13 @@ public class GraphBuilder {
       TypeNode typeNode = createNode(
           type, nameUtil.getSignature(type), getTypeDeclarationName(node, typeElem));
       if (captureInfo.needsOuterReference(typeElem)) {
-        hasOuterRef.add(typeNode);
+        references.addTypeWithOuterReference(typeNode);
       }
       VariableElement receiverField = captureInfo.getReceiverField(typeElem);
       if (receiverField != null) {
         TypeNode receiverNode = getOrCreateNode(receiverField.asType());
         if (receiverNode != null) {
-          addEdge(Edge.newReceiverClassEdge(typeNode, receiverNode));
+          references.addEdge(Edge.newReceiverClassEdge(typeNode, receiverNode));
         }
       }
       if (ElementUtil.isAnonymous(typeElem)) {
@@ -335,6 +367,34 @@ public class GraphBuilder {
       }
     }
 
+    /**
+     * Records a hash of the parts of a type's declaration that other units'
+     * references depend on, for it and its member types.
+     */
+    private void addDeclaredTypes(TypeElement element) {
+      StringBuilder sb = new StringBuilder();
+      sb.append(element.getKind()).append(element.getModifiers());
+      for (TypeParameterElement typeParam : element.getTypeParameters()) {
+        sb.append(';').append(typeParam.getSimpleName()).append(typeParam.getBounds());
+      }
+      sb.append(';').append(element.getSuperclass()).append(element.getInterfaces());
+      sb.append(';').append(ElementUtil.hasOuterContext(element))
+          .append(elementUtil.isWeakOuterType(element));
+      for (VariableElement field : ElementUtil.getDeclaredFields(element)) {
+        sb.append(';').append(field.getModifiers()).append(field.asType())
+            .append(' ').append(field.getSimpleName())
+            .append(ElementUtil.isWeakReference(field))
+            .append(ElementUtil.isRetainedWithField(field));
+      }
+      references.addDeclaredType(element.getQualifiedName().toString(),
+          Hashing.sha1().hashString(sb, StandardCharsets.UTF_8).toString());
+      for (Element member : element.getEnclosedElements()) {
+        if (member instanceof TypeElement) {
+          addDeclaredTypes((TypeElement) member);
+        }
+      }
+    }
+
     @Override
     public boolean visit(TypeDeclaration node) {
       handleTypeDeclaration(node, node.getTypeElement());
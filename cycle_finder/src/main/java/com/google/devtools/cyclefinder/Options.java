@@ -32,6 +32,8 @@ import java.util.Properties;
 class Options {
 
   private static final String XBOOTCLASSPATH = "-Xbootclasspath:";
+  private static final String JOBS_FLAG = "--jobs=";
+  private static final String PARSE_SHARDS_FLAG = "--parse-shards=";
   private static String usageMessage;
   private static String helpMessage;
 
@@ -59,6 +61,9 @@ class Options {
   private List<String> sourceFiles = Lists.newArrayList();
   private String fileEncoding = System.getProperty("file.encoding", "UTF-8");
   private boolean printReferenceGraph = false;
+  private int jobs = 1;
+  private int parseShards = 1;
+  private String cacheFile;
 
   // The default source version number if not passed with -source is determined from the system
   // properties of the running java version after parsing the argument list.
@@ -76,6 +81,10 @@ class Options {
     return sourcepath;
   }
 
+  public void setSourcepath(String sourcepath) {
+    this.sourcepath = sourcepath;
+  }
+
   public String getClasspath() {
     return classpath;
   }
@@ -143,6 +152,33 @@ class Options {
      printReferenceGraph = true;
   }
 
+  public int jobs() {
+    return jobs;
+  }
+
+  @VisibleForTesting
+  void setJobs(int jobs) {
+    this.jobs = jobs;
+  }
+
+  public int parseShards() {
+    return parseShards;
+  }
+
+  @VisibleForTesting
+  void setParseShards(int parseShards) {
+    this.parseShards = parseShards;
+  }
+
+  public String getCacheFile() {
+    return cacheFile;
+  }
+
+  @VisibleForTesting
+  void setCacheFile(String cacheFile) {
+    this.cacheFile = cacheFile;
+  }
+
   public static void usage(String invalidUseMsg) {
     System.err.println("cycle_finder: " + invalidUseMsg);
     System.err.println(usageMessage);
@@ -186,6 +222,11 @@ class Options {
           usage("--blacklist requires an argument");
         }
         options.blacklistFiles.add(args[nArg]);
+      } else if (arg.equals("--cache")) {
+        if (++nArg == args.length) {
+          usage("--cache requires an argument");
+        }
+        options.cacheFile = args[nArg];
       } else if (arg.equals("--sourcefilelist") || arg.equals("-s")) {
         if (++nArg == args.length) {
           usage("--sourcefilelist requires an argument");
@@ -209,6 +250,24 @@ class Options {
         }
       } else if (arg.equals("--print-reference-graph")) {
         options.printReferenceGraph = true;
+      } else if (arg.startsWith(JOBS_FLAG)) {
+        try {
+          options.jobs = Integer.parseInt(arg.substring(JOBS_FLAG.length()));
+        } catch (NumberFormatException e) {
+          usage("invalid number of jobs: " + arg);
+        }
+        if (options.jobs < 1) {
+          usage("invalid number of jobs: " + arg);
+        }
+      } else if (arg.startsWith(PARSE_SHARDS_FLAG)) {
+        try {
+          options.parseShards = Integer.parseInt(arg.substring(PARSE_SHARDS_FLAG.length()));
+        } catch (NumberFormatException e) {
+          usage("invalid number of parse shards: " + arg);
+        }
+        if (options.parseShards < 1) {
+          usage("invalid number of parse shards: " + arg);
+        }
       } else if (arg.equals("-version")) {
         version();
       } else if (arg.startsWith("-h") || arg.equals("--help")) {
@@ -227,6 +286,9 @@ class Options {
     if (options.sourceFiles.isEmpty()) {
       usage("no source files");
     }
+    if (options.cacheFile != null && options.parseShards > 1) {
+      usage("--parse-shards is not supported with --cache");
+    }
 
     return options;
   }
@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.cyclefinder;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A file of the references found in each source file, so that a run only
+ * needs to parse the source files that changed since the previous run, and
+ * the files whose references depend on declarations that changed.
+ * <p/>
+ * A source file's references are reused if its content hash is unchanged,
+ * and the types it followed have the same declaration signatures as when it
+ * was analyzed. Classpath types aren't tracked, so the whole cache is
+ * discarded if the options it was saved with don't match.
+ */
+class ReferenceCache {
+
+  private static final int VERSION = 1;
+
+  // The signature of types that aren't declared by a source file.
+  private static final String UNTRACKED = "";
+
+  private final String fingerprint;
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+  private ReferenceCache(String fingerprint) {
+    this.fingerprint = fingerprint;
+  }
+
+  private static class Entry {
+    private final String contentHash;
+    private final String sourceRoot;
+    private final UnitReferences references;
+    // The signatures of the unit's dependencies when it was analyzed.
+    private final Map<String, String> dependencySignatures = new TreeMap<>();
+
+    private Entry(String contentHash, String sourceRoot, UnitReferences references) {
+      this.contentHash = contentHash;
+      this.sourceRoot = sourceRoot;
+      this.references = references;
+    }
+  }
+
+  /**
+   * Loads a cache file. Returns an empty cache if the file doesn't exist,
+   * can't be read, or was saved by a different version or with different
+   * options.
+   */
+  public static ReferenceCache load(File file, String fingerprint) {
+    ReferenceCache cache = new ReferenceCache(fingerprint);
+    if (!file.exists()) {
+      return cache;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != VERSION || !in.readUTF().equals(fingerprint)) {
+        return cache;
+      }
+      for (int i = in.readInt(); i > 0; i--) {
+        String path = in.readUTF();
+        String contentHash = in.readUTF();
+        String sourceRoot = in.readBoolean() ? in.readUTF() : null;
+        Entry entry = new Entry(contentHash, sourceRoot, UnitReferences.read(in));
+        for (int j = in.readInt(); j > 0; j--) {
+          entry.dependencySignatures.put(in.readUTF(), in.readUTF());
+        }
+        cache.entries.put(path, entry);
+      }
+    } catch (IOException e) {
+      // A truncated or corrupt cache is rebuilt.
+      return new ReferenceCache(fingerprint);
+    }
+    return cache;
+  }
+
+  public void save(File file) throws IOException {
+    Files.createParentDirs(file);
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(VERSION);
+      out.writeUTF(fingerprint);
+      out.writeInt(entries.size());
+      for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+        Entry entry = mapEntry.getValue();
+        out.writeUTF(mapEntry.getKey());
+        out.writeUTF(entry.contentHash);
+        out.writeBoolean(entry.sourceRoot != null);
+        if (entry.sourceRoot != null) {
+          out.writeUTF(entry.sourceRoot);
+        }
+        entry.references.write(out);
+        out.writeInt(entry.dependencySignatures.size());
+        for (Map.Entry<String, String> dependency : entry.dependencySignatures.entrySet()) {
+          out.writeUTF(dependency.getKey());
+          out.writeUTF(dependency.getValue());
+        }
+      }
+    }
+  }
+
+  public static String hashFile(File file) throws IOException {
+    return Files.asByteSource(file).hash(Hashing.sha1()).toString();
+  }
+
+  /**
+   * Removes the entries of source files that aren't in paths.
+   */
+  public void retainFiles(Collection<String> paths) {
+    entries.keySet().retainAll(paths);
+  }
+
+  /**
+   * Returns the source roots of the cached files, which need to be on the
+   * sourcepath since the files aren't parsed.
+   */
+  public Set<String> getSourceRoots() {
+    Set<String> sourceRoots = new LinkedHashSet<>();
+    for (Entry entry : entries.values()) {
+      if (entry.sourceRoot != null) {
+        sourceRoots.add(entry.sourceRoot);
+      }
+    }
+    return sourceRoots;
+  }
+
+  /**
+   * Returns the source files that aren't cached, or whose content hash
+   * changed.
+   */
+  public List<String> getChangedFiles(Map<String, String> contentHashes) {
+    List<String> changed = new ArrayList<>();
+    for (Map.Entry<String, String> mapEntry : contentHashes.entrySet()) {
+      Entry entry = entries.get(mapEntry.getKey());
+      if (entry == null || !entry.contentHash.equals(mapEntry.getValue())) {
+        changed.add(mapEntry.getKey());
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Returns the source files whose dependencies' declarations changed since
+   * they were analyzed.
+   */
+  public List<String> getInvalidatedFiles() {
+    Map<String, String> signatures = getDeclarationSignatures();
+    List<String> invalidated = new ArrayList<>();
+    for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+      for (Map.Entry<String, String> dependency :
+           mapEntry.getValue().dependencySignatures.entrySet()) {
+        String signature = signatures.getOrDefault(dependency.getKey(), UNTRACKED);
+        if (!signature.equals(dependency.getValue())) {
+          invalidated.add(mapEntry.getKey());
+          break;
+        }
+      }
+    }
+    return invalidated;
+  }
+
+  public UnitReferences getReferences(String path) {
+    Entry entry = entries.get(path);
+    return entry != null ? entry.references : null;
+  }
+
+  public void put(String path, String contentHash, String sourceRoot, UnitReferences references) {
+    entries.put(path, new Entry(contentHash, sourceRoot, references));
+  }
+
+  /**
+   * Records the current signatures of the dependencies of the specified
+   * source files, once all the files analyzed with them are cached.
+   */
+  public void updateDependencySignatures(Collection<String> paths) {
+    Map<String, String> signatures = getDeclarationSignatures();
+    for (String path : paths) {
+      Entry entry = entries.get(path);
+      if (entry == null) {
+        continue;
+      }
+      entry.dependencySignatures.clear();
+      for (String dependency : entry.references.getDependencies()) {
+        entry.dependencySignatures.put(
+            dependency, signatures.getOrDefault(dependency, UNTRACKED));
+      }
+    }
+  }
+
+  private Map<String, String> getDeclarationSignatures() {
+    Map<String, String> signatures = new HashMap<>();
+    for (Entry entry : entries.values()) {
+      signatures.putAll(entry.references.getDeclaredTypes());
+    }
+    return signatures;
+  }
+}
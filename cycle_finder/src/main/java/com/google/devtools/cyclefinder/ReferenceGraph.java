@@ -14,102 +14,388 @@
 
 package com.google.devtools.cyclefinder;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Lists;
-import com.google.common.collect.SetMultimap;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * A graph representing possible references between Java types.
+ * <p/>
+ * Types are interned to int ids, and edges are stored in primitive arrays.
+ * The cycle search works on a compressed sparse row snapshot of the edges, and
+ * its strongly connected components are views of that snapshot rather than
+ * copies. Only the first edge added between two types is kept.
  *
  * @author Keith Stanger
  */
 public class ReferenceGraph {
 
-  private SetMultimap<TypeNode, Edge> edges = HashMultimap.create();
+  private final Map<TypeNode, Integer> ids;
+
+  // The nodes by id, in order of first appearance. A node's edges are linked
+  // through nextEdges, from firstEdges to lastEdges, in order of addition.
+  private TypeNode[] nodes;
+  private int[] firstEdges;
+  private int[] lastEdges;
+  private int nodeCount = 0;
+
+  private Edge[] edges;
+  private int[] edgeTargets;
+  private int[] nextEdges;
+  private int edgeCount = 0;
+  private EdgeKeySet edgeKeys;
+
+  // Built when first needed, and discarded when an edge is added.
+  private Snapshot snapshot;
+
+  // For a strongly connected component, its nodes and the component and
+  // position within its component of each node of the graph.
+  private final int[] members;
+  private final int componentId;
+  private final int[] componentIds;
+  private final int[] positions;
+
+  public ReferenceGraph() {
+    ids = new HashMap<>();
+    nodes = new TypeNode[16];
+    firstEdges = new int[16];
+    lastEdges = new int[16];
+    edges = new Edge[16];
+    edgeTargets = new int[16];
+    nextEdges = new int[16];
+    edgeKeys = new EdgeKeySet();
+    members = null;
+    componentId = -1;
+    componentIds = null;
+    positions = null;
+  }
+
+  private ReferenceGraph(ReferenceGraph graph, Snapshot snapshot, int[] members, int componentId,
+      int[] componentIds, int[] positions) {
+    ids = graph.ids;
+    this.snapshot = snapshot;
+    this.members = members;
+    this.componentId = componentId;
+    this.componentIds = componentIds;
+    this.positions = positions;
+  }
+
+  private boolean isComponent() {
+    return members != null;
+  }
 
   public Set<TypeNode> getNodes() {
-    return Collections.unmodifiableSet(edges.keySet());
+    Set<TypeNode> result = new LinkedHashSet<>();
+    if (isComponent()) {
+      for (int node : members) {
+        result.add(snapshot.nodes[node]);
+      }
+    } else {
+      for (int node = 0; node < nodeCount; node++) {
+        if (firstEdges[node] != -1) {
+          result.add(nodes[node]);
+        }
+      }
+    }
+    return Collections.unmodifiableSet(result);
   }
 
-  public Set<Edge> getEdges(TypeNode node) {
-    return Collections.unmodifiableSet(edges.get(node));
+  public List<Edge> getEdges(TypeNode node) {
+    Integer id = ids.get(node);
+    if (id == null) {
+      return Collections.emptyList();
+    }
+    List<Edge> result = new ArrayList<>();
+    if (isComponent()) {
+      if (id < componentIds.length && componentIds[id] == componentId) {
+        for (int e = snapshot.offsets[id]; e < snapshot.offsets[id + 1]; e++) {
+          if (componentIds[snapshot.targets[e]] == componentId) {
+            result.add(snapshot.edges[e]);
+          }
+        }
+      }
+    } else {
+      for (int e = firstEdges[id]; e != -1; e = nextEdges[e]) {
+        result.add(edges[e]);
+      }
+    }
+    return Collections.unmodifiableList(result);
   }
 
   public void addEdge(Edge e) {
-    edges.put(e.getOrigin(), e);
+    if (isComponent()) {
+      throw new UnsupportedOperationException("a strongly connected component is read-only");
+    }
+    int origin = intern(e.getOrigin());
+    int target = intern(e.getTarget());
+    if (!edgeKeys.add(origin, target)) {
+      return;
+    }
+    if (edgeCount == edges.length) {
+      int capacity = edgeCount * 2;
+      edges = Arrays.copyOf(edges, capacity);
+      edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+      nextEdges = Arrays.copyOf(nextEdges, capacity);
+    }
+    int edge = edgeCount++;
+    edges[edge] = e;
+    edgeTargets[edge] = target;
+    nextEdges[edge] = -1;
+    if (firstEdges[origin] == -1) {
+      firstEdges[origin] = edge;
+    } else {
+      nextEdges[lastEdges[origin]] = edge;
+    }
+    lastEdges[origin] = edge;
+    snapshot = null;
+  }
+
+  private int intern(TypeNode node) {
+    Integer id = ids.get(node);
+    if (id != null) {
+      return id;
+    }
+    if (nodeCount == nodes.length) {
+      int capacity = nodeCount * 2;
+      nodes = Arrays.copyOf(nodes, capacity);
+      firstEdges = Arrays.copyOf(firstEdges, capacity);
+      lastEdges = Arrays.copyOf(lastEdges, capacity);
+    }
+    nodes[nodeCount] = node;
+    firstEdges[nodeCount] = -1;
+    ids.put(node, nodeCount);
+    return nodeCount++;
+  }
+
+  private Snapshot getSnapshot() {
+    if (snapshot == null) {
+      int[] offsets = new int[nodeCount + 1];
+      Edge[] sortedEdges = new Edge[edgeCount];
+      int[] targets = new int[edgeCount];
+      int i = 0;
+      for (int node = 0; node < nodeCount; node++) {
+        offsets[node] = i;
+        for (int e = firstEdges[node]; e != -1; e = nextEdges[e]) {
+          sortedEdges[i] = edges[e];
+          targets[i++] = edgeTargets[e];
+        }
+      }
+      offsets[nodeCount] = i;
+      // The nodes array is only appended to, so the snapshot can share it.
+      snapshot = new Snapshot(nodes, offsets, sortedEdges, targets);
+    }
+    return snapshot;
   }
 
   public List<ReferenceGraph> getStronglyConnectedComponents(Set<TypeNode> seedNodes) {
-    List<List<TypeNode>> componentNodesList =
-        Tarjans.getStronglyConnectedComponents(edges, seedNodes);
+    return getStronglyConnectedComponents(seedNodes, null);
+  }
+
+  /**
+   * Returns the strongly connected components with more than one node that
+   * are reachable from the seed nodes. If a pool is specified, each weakly
+   * connected component is searched by its own task, since components can't
+   * span them.
+   */
+  public List<ReferenceGraph> getStronglyConnectedComponents(
+      Collection<TypeNode> seedNodes, ForkJoinPool pool) {
+    if (isComponent()) {
+      throw new UnsupportedOperationException("already a strongly connected component");
+    }
+    Snapshot snapshot = getSnapshot();
+    Tarjans tarjans = new Tarjans(snapshot.offsets, snapshot.targets);
+    List<int[]> componentNodes = new ArrayList<>();
+    if (pool == null) {
+      componentNodes.addAll(tarjans.getStronglyConnectedComponents(getIds(seedNodes)));
+    } else {
+      List<ForkJoinTask<List<int[]>>> tasks = new ArrayList<>();
+      for (int[] seeds : groupByWeaklyConnectedComponent(snapshot, getIds(seedNodes))) {
+        tasks.add(pool.submit(() -> tarjans.getStronglyConnectedComponents(seeds)));
+      }
+      for (ForkJoinTask<List<int[]>> task : tasks) {
+        componentNodes.addAll(task.join());
+      }
+    }
+
+    int[] componentIds = new int[nodeCount];
+    Arrays.fill(componentIds, -1);
+    int[] positions = new int[nodeCount];
     List<ReferenceGraph> components = new ArrayList<>();
-    for (List<TypeNode> componentNodes : componentNodesList) {
-      components.add(getSubgraph(componentNodes));
+    for (int[] members : componentNodes) {
+      int id = components.size();
+      for (int i = 0; i < members.length; i++) {
+        componentIds[members[i]] = id;
+        positions[members[i]] = i;
+      }
+      components.add(new ReferenceGraph(this, snapshot, members, id, componentIds, positions));
     }
     return components;
   }
 
+  private int[] getIds(Collection<TypeNode> nodes) {
+    int[] result = new int[nodes.size()];
+    int count = 0;
+    for (TypeNode node : nodes) {
+      Integer id = ids.get(node);
+      if (id != null) {
+        result[count++] = id;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Groups the seeds by weakly connected component, in order of appearance,
+   * using a union-find over the edges.
+   */
+  private static Collection<int[]> groupByWeaklyConnectedComponent(
+      Snapshot snapshot, int[] seeds) {
+    int nodeCount = snapshot.offsets.length - 1;
+    int[] parents = new int[nodeCount];
+    for (int node = 0; node < nodeCount; node++) {
+      parents[node] = node;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      for (int e = snapshot.offsets[node]; e < snapshot.offsets[node + 1]; e++) {
+        int a = findRoot(parents, node);
+        int b = findRoot(parents, snapshot.targets[e]);
+        if (a != b) {
+          parents[Math.max(a, b)] = Math.min(a, b);
+        }
+      }
+    }
+    Map<Integer, int[]> groups = new LinkedHashMap<>();
+    Map<Integer, Integer> groupSizes = new HashMap<>();
+    for (int seed : seeds) {
+      int root = findRoot(parents, seed);
+      int size = groupSizes.getOrDefault(root, 0);
+      int[] group = groups.get(root);
+      if (group == null || group.length == size) {
+        group = group == null ? new int[4] : Arrays.copyOf(group, size * 2);
+        groups.put(root, group);
+      }
+      group[size] = seed;
+      groupSizes.put(root, size + 1);
+    }
+    List<int[]> result = new ArrayList<>();
+    for (Map.Entry<Integer, int[]> entry : groups.entrySet()) {
+      result.add(Arrays.copyOf(entry.getValue(), groupSizes.get(entry.getKey())));
+    }
+    return result;
+  }
+
+  private static int findRoot(int[] parents, int node) {
+    while (parents[node] != node) {
+      parents[node] = parents[parents[node]];
+      node = parents[node];
+    }
+    return node;
+  }
+
+  /**
+   * Finds cycles in a strongly connected component, so that each of its nodes
+   * is in at least one of them. Each cycle is a shortest one through the
+   * first node that isn't in a previous cycle.
+   */
+  public List<List<Edge>> findCycles() {
+    if (!isComponent()) {
+      throw new UnsupportedOperationException("not a strongly connected component");
+    }
+    boolean[] used = new boolean[members.length];
+    List<List<Edge>> cycles = new ArrayList<>();
+    for (int i = 0; i < members.length; i++) {
+      if (!used[i]) {
+        List<Edge> cycle = findShortestCycle(members[i]);
+        for (Edge e : cycle) {
+          used[positions[ids.get(e.getOrigin())]] = true;
+        }
+        cycles.add(cycle);
+      }
+    }
+    return cycles;
+  }
+
   /**
    * Runs a version of Dijkstra's algorithm to find a tight cycle in the given
    * strongly connected component.
    */
   public List<Edge> findShortestCycle(TypeNode root) {
-    Map<TypeNode, Edge> backlinks = new HashMap<>();
-    Set<TypeNode> visited = new HashSet<>();
-    List<TypeNode> toVisit = Lists.newArrayList(root);
-    outer: while (true) {
-      List<TypeNode> visitNext = new ArrayList<>();
-      for (TypeNode source : toVisit) {
-        visited.add(source);
-        for (Edge e : edges.get(source)) {
-          TypeNode target = e.getTarget();
-          if (!visited.contains(target)) {
-            visitNext.add(target);
-            backlinks.put(target, e);
-          } else if (target.equals(root)) {
-            backlinks.put(root, e);
-            break outer;
-          }
+    Integer id = ids.get(root);
+    if (id == null
+        || (isComponent() && (id >= componentIds.length || componentIds[id] != componentId))) {
+      throw new IllegalArgumentException("not in graph: " + root);
+    }
+    return findShortestCycle(id);
+  }
+
+  /**
+   * A breadth-first search from the root, which records the edge each node
+   * was first reached by until an edge back to the root is found.
+   */
+  private List<Edge> findShortestCycle(int root) {
+    Snapshot snapshot = isComponent() ? this.snapshot : getSnapshot();
+    int size = isComponent() ? members.length : snapshot.offsets.length - 1;
+    int[] queue = new int[size];
+    int[] backlinks = new int[size];
+    int[] backlinkOrigins = new int[size];
+    boolean[] visited = new boolean[size];
+    queue[0] = root;
+    int tail = 1;
+    visited[position(root)] = true;
+    int rootBacklink = -1;
+    int rootBacklinkOrigin = -1;
+    outer: for (int head = 0; head < tail; head++) {
+      int node = queue[head];
+      for (int e = snapshot.offsets[node]; e < snapshot.offsets[node + 1]; e++) {
+        int target = snapshot.targets[e];
+        if (isComponent() && componentIds[target] != componentId) {
+          continue;
+        }
+        if (target == root) {
+          rootBacklink = e;
+          rootBacklinkOrigin = node;
+          break outer;
+        }
+        int position = position(target);
+        if (!visited[position]) {
+          visited[position] = true;
+          backlinks[position] = e;
+          backlinkOrigins[position] = node;
+          queue[tail++] = target;
         }
       }
-      toVisit = visitNext;
+    }
+    if (rootBacklink == -1) {
+      throw new IllegalArgumentException("no cycle through " + snapshot.nodes[root]);
     }
     List<Edge> cycle = new ArrayList<>();
-    TypeNode curNode = root;
-    while (!curNode.equals(root) || cycle.size() == 0) {
-      Edge nextEdge = backlinks.get(curNode);
-      cycle.add(nextEdge);
-      curNode = nextEdge.getOrigin();
+    cycle.add(snapshot.edges[rootBacklink]);
+    for (int node = rootBacklinkOrigin; node != root; node = backlinkOrigins[position(node)]) {
+      cycle.add(snapshot.edges[backlinks[position(node)]]);
     }
-    return Lists.newArrayList(Lists.reverse(cycle));
+    Collections.reverse(cycle);
+    return cycle;
   }
 
-  private ReferenceGraph getSubgraph(Collection<TypeNode> vertices) {
-    ReferenceGraph subgraph = new ReferenceGraph();
-    for (TypeNode type : vertices) {
-      for (Edge e : edges.get(type)) {
-        if (vertices.contains(e.getTarget())) {
-          subgraph.addEdge(e);
-        }
-      }
-    }
-    return subgraph;
+  private int position(int node) {
+    return isComponent() ? positions[node] : node;
   }
 
   public void print(PrintStream printStream) {
-    ArrayList<TypeNode> typeNodes = new ArrayList<>(edges.keySet());
+    ArrayList<TypeNode> typeNodes = new ArrayList<>(getNodes());
     Collections.sort(typeNodes, (a, b) -> a.getName().compareTo(b.getName()));
     for (TypeNode typeNode : typeNodes) {
-      ArrayList<Edge> outgoingEdges = new ArrayList<>(edges.get(typeNode));
+      ArrayList<Edge> outgoingEdges = new ArrayList<>(getEdges(typeNode));
       Collections.sort(
           outgoingEdges, (a, b) -> a.getTarget().getName().compareTo(b.getTarget().getName()));
       printStream.println("class: " + typeNode);
@@ -118,4 +404,71 @@ public class ReferenceGraph {
       }
     }
   }
+
+  /**
+   * The edges in compressed sparse row form: the edges of node n are at
+   * positions offsets[n] to offsets[n + 1] - 1 of the edge arrays.
+   */
+  private static class Snapshot {
+    private final TypeNode[] nodes;
+    private final int[] offsets;
+    private final Edge[] edges;
+    private final int[] targets;
+
+    private Snapshot(TypeNode[] nodes, int[] offsets, Edge[] edges, int[] targets) {
+      this.nodes = nodes;
+      this.offsets = offsets;
+      this.edges = edges;
+      this.targets = targets;
+    }
+  }
+
+  /**
+   * An open addressing hash set of (origin, target) pairs.
+   */
+  private static class EdgeKeySet {
+    private static final long EMPTY = -1;
+
+    private long[] keys = newKeys(64);
+    private int size = 0;
+
+    private static long[] newKeys(int capacity) {
+      long[] keys = new long[capacity];
+      Arrays.fill(keys, EMPTY);
+      return keys;
+    }
+
+    /**
+     * Adds a pair, returning false if it was already in the set.
+     */
+    boolean add(int origin, int target) {
+      if (size * 2 >= keys.length) {
+        long[] oldKeys = keys;
+        keys = newKeys(oldKeys.length * 2);
+        for (long key : oldKeys) {
+          if (key != EMPTY) {
+            insert(key);
+          }
+        }
+      }
+      if (insert(((long) origin << 32) | target)) {
+        size++;
+        return true;
+      }
+      return false;
+    }
+
+    private boolean insert(long key) {
+      int mask = keys.length - 1;
+      int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+      while (keys[i] != EMPTY) {
+        if (keys[i] == key) {
+          return false;
+        }
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      return true;
+    }
+  }
 }
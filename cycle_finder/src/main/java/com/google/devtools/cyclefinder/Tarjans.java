@@ -14,97 +14,141 @@
 
 package com.google.devtools.cyclefinder;
 
-import com.google.common.collect.SetMultimap;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 /**
  * An implementation of Tarjan's strongly connected components algorithm.
  * http://en.wikipedia.org/wiki/Tarjan's_strongly_connected_components_algorithm
+ * <p/>
+ * The search is iterative rather than recursive, so that long reference
+ * chains can't overflow the stack. The per-node state is indexed by node id,
+ * so searches from seeds in different weakly connected components don't
+ * share any state and may run concurrently.
  */
 class Tarjans {
 
-  private final SetMultimap<TypeNode, Edge> edges;
-  private final Set<TypeNode> seedTypes;
-  private int vIndex = 0;
-  // In case of performance issues, consider a data structure with faster .contains().
-  private ArrayList<Vertex> stack = new ArrayList<>();
-  private Map<TypeNode, Vertex> vertices = new HashMap<>();
-  private List<List<TypeNode>> stronglyConnectedComponents = new ArrayList<>();
+  private final int[] edgeOffsets;
+  private final int[] edgeTargets;
+  private final int[] index;
+  private final int[] lowlink;
+  private final boolean[] onStack;
 
-  private Tarjans(SetMultimap<TypeNode, Edge> edges, Set<TypeNode> seedTypes) {
-    this.edges = edges;
-    this.seedTypes = seedTypes;
+  /**
+   * Creates a search of a graph in compressed sparse row form: the edges of
+   * node n have the targets edgeTargets[edgeOffsets[n]] to
+   * edgeTargets[edgeOffsets[n + 1] - 1].
+   */
+  Tarjans(int[] edgeOffsets, int[] edgeTargets) {
+    this.edgeOffsets = edgeOffsets;
+    this.edgeTargets = edgeTargets;
+    int nodeCount = edgeOffsets.length - 1;
+    index = new int[nodeCount];
+    Arrays.fill(index, -1);
+    lowlink = new int[nodeCount];
+    onStack = new boolean[nodeCount];
   }
 
-  public static List<List<TypeNode>> getStronglyConnectedComponents(
-      SetMultimap<TypeNode, Edge> edges, Set<TypeNode> seedTypes) {
-    Tarjans tarjans = new Tarjans(edges, seedTypes);
-    tarjans.run();
-    return tarjans.stronglyConnectedComponents;
-  }
-
-  private void run() {
-    for (TypeNode type : seedTypes) {
-      Vertex v = getVertex(type);
-      if (v.index == -1) {
-        visit(v);
+  /**
+   * Returns the node ids of the strongly connected components with more than
+   * one node that are reachable from the seeds.
+   */
+  List<int[]> getStronglyConnectedComponents(int[] seeds) {
+    List<int[]> components = new ArrayList<>();
+    IntStack stack = new IntStack();
+    // The nodes being visited, and the position of their next edge.
+    IntStack visitNodes = new IntStack();
+    IntStack visitEdges = new IntStack();
+    int nextIndex = 0;
+    for (int seed : seeds) {
+      if (index[seed] != -1) {
+        continue;
+      }
+      index[seed] = lowlink[seed] = nextIndex++;
+      stack.push(seed);
+      onStack[seed] = true;
+      visitNodes.push(seed);
+      visitEdges.push(edgeOffsets[seed]);
+      while (visitNodes.size() > 0) {
+        int v = visitNodes.peek();
+        int e = visitEdges.peek();
+        if (e < edgeOffsets[v + 1]) {
+          visitEdges.set(visitEdges.size() - 1, e + 1);
+          int w = edgeTargets[e];
+          if (index[w] == -1) {
+            index[w] = lowlink[w] = nextIndex++;
+            stack.push(w);
+            onStack[w] = true;
+            visitNodes.push(w);
+            visitEdges.push(edgeOffsets[w]);
+          } else if (onStack[w]) {
+            lowlink[v] = Math.min(lowlink[v], index[w]);
+          }
+          continue;
+        }
+        visitNodes.pop();
+        visitEdges.pop();
+        if (visitNodes.size() > 0) {
+          int u = visitNodes.peek();
+          lowlink[u] = Math.min(lowlink[u], lowlink[v]);
+        }
+        if (lowlink[v] == index[v]) {
+          int start = stack.lastIndexOf(v);
+          assert start >= 0;
+          if (stack.size() - start > 1) {
+            components.add(stack.copyFrom(start));
+          }
+          while (stack.size() > start) {
+            onStack[stack.pop()] = false;
+          }
+        }
       }
     }
+    return components;
   }
 
-  private void visit(Vertex v) {
-    v.index = v.lowlink = vIndex++;
-    stack.add(v);
+  /**
+   * A growable stack of ints.
+   */
+  private static class IntStack {
+    private int[] values = new int[16];
+    private int size = 0;
 
-    for (Edge edge : edges.get(v.type)) {
-      Vertex w = getVertex(edge.getTarget());
-      if (w.index == -1) {
-        visit(w);
-        v.lowlink = Math.min(v.lowlink, w.lowlink);
-      } else if (stack.contains(w)) {
-        v.lowlink = Math.min(v.lowlink, w.index);
+    void push(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
       }
+      values[size++] = value;
     }
 
-    if (v.lowlink == v.index) {
-      int idx = stack.indexOf(v);
-      assert idx >= 0;
-      List<Vertex> stronglyConnected = stack.subList(idx, stack.size());
-      if (stronglyConnected.size() > 1) {
-        List<TypeNode> stronglyConnectedTypes = new ArrayList<>(stronglyConnected.size());
-        for (Vertex ver : stronglyConnected) {
-          stronglyConnectedTypes.add(ver.type);
-        }
-        stronglyConnectedComponents.add(stronglyConnectedTypes);
-      }
-      stronglyConnected.clear();  // Removes the sublist from stack.
+    int pop() {
+      return values[--size];
     }
-  }
 
-  private Vertex getVertex(TypeNode type) {
-    Vertex v = vertices.get(type);
-    if (v == null) {
-      v = new Vertex(type);
-      vertices.put(type, v);
+    int peek() {
+      return values[size - 1];
     }
-    return v;
-  }
 
-  private static class Vertex {
-    private int index = -1;
-    private int lowlink = -1;
-    private TypeNode type;
+    void set(int i, int value) {
+      values[i] = value;
+    }
 
-    private Vertex(TypeNode type) {
-      this.type = type;
+    int size() {
+      return size;
+    }
+
+    int lastIndexOf(int value) {
+      for (int i = size - 1; i >= 0; i--) {
+        if (values[i] == value) {
+          return i;
+        }
+      }
+      return -1;
     }
 
-    public String toString() {
-      return type.toString();
+    int[] copyFrom(int start) {
+      return Arrays.copyOfRange(values, start, size);
     }
   }
 }
@@ -0,0 +1,270 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.cyclefinder;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The types and references that {@link GraphBuilder} finds in compilation
+ * units, before the edges that depend on the whole program are added. The
+ * references found in a single unit can be cached, so they also record what
+ * the unit's references depend on.
+ */
+class UnitReferences {
+
+  private final Map<String, TypeNode> types = new LinkedHashMap<>();
+  private final List<Edge> edges = new ArrayList<>();
+  private final Map<TypeNode, TypeNode> superclasses = new LinkedHashMap<>();
+  private final SetMultimap<TypeNode, TypeNode> subtypes = LinkedHashMultimap.create();
+  private final SetMultimap<TypeNode, Edge> possibleOuterEdges = LinkedHashMultimap.create();
+  private final Set<TypeNode> hasOuterRef = new LinkedHashSet<>();
+
+  // The qualified names of the types whose declarations were followed.
+  private final Set<String> dependencies = new TreeSet<>();
+  // The signatures of the named types declared by the unit, by qualified name.
+  private final Map<String, String> declaredTypes = new TreeMap<>();
+
+  public TypeNode getType(String signature) {
+    return types.get(signature);
+  }
+
+  public Collection<TypeNode> getTypes() {
+    return Collections.unmodifiableCollection(types.values());
+  }
+
+  /**
+   * Adds a type, replacing any type with the same signature.
+   */
+  public void addType(TypeNode type) {
+    types.put(type.getSignature(), type);
+  }
+
+  public List<Edge> getEdges() {
+    return Collections.unmodifiableList(edges);
+  }
+
+  public void addEdge(Edge e) {
+    edges.add(e);
+  }
+
+  public TypeNode getSuperclass(TypeNode type) {
+    return superclasses.get(type);
+  }
+
+  public void setSuperclass(TypeNode type, TypeNode superclass) {
+    superclasses.put(type, superclass);
+  }
+
+  public Set<TypeNode> getSubtypes(TypeNode type) {
+    return Collections.unmodifiableSet(subtypes.get(type));
+  }
+
+  public void addSubtype(TypeNode type, TypeNode subtype) {
+    subtypes.put(type, subtype);
+  }
+
+  public Set<Edge> getPossibleOuterEdges(TypeNode type) {
+    return Collections.unmodifiableSet(possibleOuterEdges.get(type));
+  }
+
+  public void addPossibleOuterEdge(TypeNode type, Edge e) {
+    possibleOuterEdges.put(type, e);
+  }
+
+  public Set<TypeNode> getTypesWithOuterReference() {
+    return Collections.unmodifiableSet(hasOuterRef);
+  }
+
+  public void addTypeWithOuterReference(TypeNode type) {
+    hasOuterRef.add(type);
+  }
+
+  public Set<String> getDependencies() {
+    return Collections.unmodifiableSet(dependencies);
+  }
+
+  public void addDependency(String qualifiedName) {
+    dependencies.add(qualifiedName);
+  }
+
+  public Map<String, String> getDeclaredTypes() {
+    return Collections.unmodifiableMap(declaredTypes);
+  }
+
+  public void addDeclaredType(String qualifiedName, String signature) {
+    declaredTypes.put(qualifiedName, signature);
+  }
+
+  /**
+   * Adds the types and references of another set of units. Dependencies and
+   * declared types aren't needed once the references are reused, so they
+   * aren't added.
+   */
+  public void addAll(UnitReferences other) {
+    types.putAll(other.types);
+    edges.addAll(other.edges);
+    superclasses.putAll(other.superclasses);
+    subtypes.putAll(other.subtypes);
+    possibleOuterEdges.putAll(other.possibleOuterEdges);
+    hasOuterRef.addAll(other.hasOuterRef);
+  }
+
+  public void write(DataOutputStream out) throws IOException {
+    // Type nodes are written once, and then referred to by index. Nodes with
+    // the same signature may have different names, so they're compared by
+    // identity.
+    Map<TypeNode, Integer> nodeIds = new IdentityHashMap<>();
+    List<TypeNode> nodes = new ArrayList<>();
+    for (TypeNode type : types.values()) {
+      addNode(type, nodeIds, nodes);
+    }
+    for (Edge e : edges) {
+      addNode(e.getOrigin(), nodeIds, nodes);
+      addNode(e.getTarget(), nodeIds, nodes);
+    }
+    for (Map.Entry<TypeNode, TypeNode> entry : superclasses.entrySet()) {
+      addNode(entry.getKey(), nodeIds, nodes);
+      addNode(entry.getValue(), nodeIds, nodes);
+    }
+    for (Map.Entry<TypeNode, TypeNode> entry : subtypes.entries()) {
+      addNode(entry.getKey(), nodeIds, nodes);
+      addNode(entry.getValue(), nodeIds, nodes);
+    }
+    for (Map.Entry<TypeNode, Edge> entry : possibleOuterEdges.entries()) {
+      addNode(entry.getKey(), nodeIds, nodes);
+      addNode(entry.getValue().getOrigin(), nodeIds, nodes);
+      addNode(entry.getValue().getTarget(), nodeIds, nodes);
+    }
+    for (TypeNode type : hasOuterRef) {
+      addNode(type, nodeIds, nodes);
+    }
+
+    out.writeInt(nodes.size());
+    for (TypeNode node : nodes) {
+      out.writeUTF(node.getSignature());
+      out.writeUTF(node.getName());
+      out.writeUTF(node.getQualifiedName());
+    }
+    out.writeInt(types.size());
+    for (TypeNode type : types.values()) {
+      out.writeInt(nodeIds.get(type));
+    }
+    out.writeInt(edges.size());
+    for (Edge e : edges) {
+      writeEdge(e, nodeIds, out);
+    }
+    out.writeInt(superclasses.size());
+    for (Map.Entry<TypeNode, TypeNode> entry : superclasses.entrySet()) {
+      out.writeInt(nodeIds.get(entry.getKey()));
+      out.writeInt(nodeIds.get(entry.getValue()));
+    }
+    out.writeInt(subtypes.size());
+    for (Map.Entry<TypeNode, TypeNode> entry : subtypes.entries()) {
+      out.writeInt(nodeIds.get(entry.getKey()));
+      out.writeInt(nodeIds.get(entry.getValue()));
+    }
+    out.writeInt(possibleOuterEdges.size());
+    for (Map.Entry<TypeNode, Edge> entry : possibleOuterEdges.entries()) {
+      out.writeInt(nodeIds.get(entry.getKey()));
+      writeEdge(entry.getValue(), nodeIds, out);
+    }
+    out.writeInt(hasOuterRef.size());
+    for (TypeNode type : hasOuterRef) {
+      out.writeInt(nodeIds.get(type));
+    }
+    out.writeInt(dependencies.size());
+    for (String dependency : dependencies) {
+      out.writeUTF(dependency);
+    }
+    out.writeInt(declaredTypes.size());
+    for (Map.Entry<String, String> entry : declaredTypes.entrySet()) {
+      out.writeUTF(entry.getKey());
+      out.writeUTF(entry.getValue());
+    }
+  }
+
+  public static UnitReferences read(DataInputStream in) throws IOException {
+    UnitReferences references = new UnitReferences();
+    TypeNode[] nodes = new TypeNode[in.readInt()];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = new TypeNode(in.readUTF(), in.readUTF(), in.readUTF());
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      references.addType(nodes[in.readInt()]);
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      references.addEdge(readEdge(nodes, in));
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      references.setSuperclass(nodes[in.readInt()], nodes[in.readInt()]);
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      references.addSubtype(nodes[in.readInt()], nodes[in.readInt()]);
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      references.addPossibleOuterEdge(nodes[in.readInt()], readEdge(nodes, in));
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      references.addTypeWithOuterReference(nodes[in.readInt()]);
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      references.addDependency(in.readUTF());
+    }
+    for (int i = in.readInt(); i > 0; i--) {
+      references.addDeclaredType(in.readUTF(), in.readUTF());
+    }
+    return references;
+  }
+
+  private static void addNode(TypeNode node, Map<TypeNode, Integer> nodeIds, List<TypeNode> nodes) {
+    if (!nodeIds.containsKey(node)) {
+      nodeIds.put(node, nodes.size());
+      nodes.add(node);
+    }
+  }
+
+  private static void writeEdge(Edge e, Map<TypeNode, Integer> nodeIds, DataOutputStream out)
+      throws IOException {
+    out.writeInt(nodeIds.get(e.getOrigin()));
+    out.writeInt(nodeIds.get(e.getTarget()));
+    out.writeBoolean(e.getFieldQualifiedName() != null);
+    if (e.getFieldQualifiedName() != null) {
+      out.writeUTF(e.getFieldQualifiedName());
+    }
+    out.writeUTF(e.getDescription());
+  }
+
+  private static Edge readEdge(TypeNode[] nodes, DataInputStream in) throws IOException {
+    TypeNode origin = nodes[in.readInt()];
+    TypeNode target = nodes[in.readInt()];
+    String fieldQualifiedName = in.readBoolean() ? in.readUTF() : null;
+    return new Edge(origin, target, fieldQualifiedName, in.readUTF());
+  }
+}
@@ -39,6 +39,9 @@ public class CycleFinderTest extends TestCase {
   List<String> whitelistEntries;
   List<String> blacklistEntries;
   boolean printReferenceGraph;
+  int jobs;
+  int parseShards;
+  File cacheFile;
   ReferenceGraph referenceGraph;
 
   static {
@@ -53,6 +56,9 @@ public class CycleFinderTest extends TestCase {
     whitelistEntries = new ArrayList<>();
     blacklistEntries = new ArrayList<>();
     printReferenceGraph = false;
+    jobs = 1;
+    parseShards = 1;
+    cacheFile = null;
     referenceGraph = null;
   }
 
@@ -401,6 +407,73 @@ public class CycleFinderTest extends TestCase {
     assertContains("C -> (field a with type A)", graph);
   }
 
+  public void testParallelCycleSearch() throws Exception {
+    addSourceFile("A.java", "class A { B b; C c; }");
+    addSourceFile("B.java", "class B { A a; }");
+    addSourceFile("C.java", "class C { A a; }");
+    addSourceFile("D.java", "class D { E e; }");
+    addSourceFile("E.java", "class E { D d; }");
+    addSourceFile("F.java", "class F { A a; D d; }");
+    jobs = 4;
+    findCycles();
+    assertEquals(3, cycles.size());
+    assertCycle("LA;", "LB;");
+    assertCycle("LA;", "LC;");
+    assertCycle("LD;", "LE;");
+  }
+
+  public void testParallelCycleSearchWithBlacklist() throws Exception {
+    addSourceFile("A.java", "class A { B b; C c; }");
+    addSourceFile("B.java", "class B { A a; }");
+    addSourceFile("C.java", "class C { A a; }");
+    blacklistEntries.add("TYPE C");
+    jobs = 2;
+    findCycles();
+    assertEquals(1, cycles.size());
+    assertCycle("LA;", "LC;");
+  }
+
+  public void testShardedParsing() throws Exception {
+    addSourceFile("A.java", "class A { B b; }");
+    addSourceFile("B.java", "class B { C c; }");
+    addSourceFile("C.java", "class C { A a; }");
+    addSourceFile("D.java", "class D { E e; }");
+    addSourceFile("E.java", "class E { D d; }");
+    // Both cycles reference types in other shards.
+    parseShards = 3;
+    findCycles();
+    assertEquals(2, cycles.size());
+    assertCycle("LA;", "LB;", "LC;");
+    assertCycle("LD;", "LE;");
+  }
+
+  public void testIncrementalCycleSearch() throws Exception {
+    addSourceFile("A.java", "class A { B b; }");
+    addSourceFile("B.java", "class B { C c; }");
+    addSourceFile("C.java", "class C {}");
+    cacheFile = new File(tempDir, "cache");
+    findCycles();
+    assertNoCycles();
+    assertTrue(cacheFile.exists());
+
+    writeSourceFile("C.java", "class C { A a; }");
+    findCycles();
+    assertCycle("LA;", "LB;", "LC;");
+  }
+
+  public void testIncrementalCycleSearchWithChangedDependency() throws Exception {
+    // A's references include B<A>'s fields, so A is reanalyzed when B changes.
+    addSourceFile("A.java", "class A { B<A> b; }");
+    addSourceFile("B.java", "class B<T> {}");
+    cacheFile = new File(tempDir, "cache");
+    findCycles();
+    assertNoCycles();
+
+    writeSourceFile("B.java", "class B<T> { T t; }");
+    findCycles();
+    assertCycle("LA;", "LB<LA;>;");
+  }
+
   private void assertContains(String substr, String str) {
     assertTrue("Expected \"" + substr + "\" within \"" + str + "\"", str.contains(substr));
   }
@@ -454,6 +527,11 @@ public class CycleFinderTest extends TestCase {
     }
     options.setSourceFiles(inputFiles);
     options.setClasspath(System.getProperty("java.class.path"));
+    options.setJobs(jobs);
+    options.setParseShards(parseShards);
+    if (cacheFile != null) {
+      options.setCacheFile(cacheFile.getAbsolutePath());
+    }
     if (printReferenceGraph) {
       options.setPrintReferenceGraph();
     }
@@ -470,10 +548,14 @@ public class CycleFinderTest extends TestCase {
   }
 
   private void addSourceFile(String fileName, String source) throws IOException {
+    inputFiles.add(writeSourceFile(fileName, source).getAbsolutePath());
+  }
+
+  private File writeSourceFile(String fileName, String source) throws IOException {
     File file = new File(tempDir, fileName);
     file.getParentFile().mkdirs();
     Files.write(source, file, Charset.defaultCharset());
-    inputFiles.add(file.getAbsolutePath());
+    return file;
   }
 
   private File createTempDir() throws IOException {
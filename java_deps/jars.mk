@@ -35,6 +35,13 @@ ASM_SOURCE_JAR = asm-5.0.4-sources.jar
 
 PROTOBUF_JAR = protobuf-java-3.3.0.jar
 
+# Translator benchmarks
+JMH_JARS = \
+    jmh-core-1.19.jar \
+    jmh-generator-annprocess-1.19.jar \
+    jopt-simple-4.6.jar \
+    commons-math3-3.2.jar
+
 ECLIPSE_JARS = \
     org.eclipse.core.contenttype-3.4.200.v20140207-1251.jar \
     org.eclipse.core.jobs-3.6.1.v20141014-1248.jar \
@@ -228,6 +228,41 @@ jint JreIndexOfStr(NSString *str, NSString **values, jint size) {
   return -1;
 }
 
+jint JreIndexOfStrHashed(NSString *str, NSString **values, const jint *hashes, jint size) {
+  if (!str) {
+    return -1;
+  }
+  // The java.lang.String hash code, computed without caching it like
+  // javaStringHashCode() does, since switch values are often short-lived.
+  uint32_t hash = 0;
+  NSUInteger length = [str length];
+  unichar chars[64];
+  for (NSUInteger offset = 0; offset < length; offset += 64) {
+    NSUInteger count = MIN(64, length - offset);
+    [str getCharacters:chars range:NSMakeRange(offset, count)];
+    for (NSUInteger i = 0; i < count; i++) {
+      hash = 31 * hash + chars[i];
+    }
+  }
+  // The hashes are sorted, so find the first one that matches.
+  jint low = 0;
+  jint high = size;
+  while (low < high) {
+    jint mid = (jint)(((uint32_t)low + (uint32_t)high) >> 1);
+    if (hashes[mid] < (jint)hash) {
+      low = mid + 1;
+    } else {
+      high = mid;
+    }
+  }
+  for (jint i = low; i < size && hashes[i] == (jint)hash; i++) {
+    if ([str isEqualToString:values[i]]) {
+      return i;
+    }
+  }
+  return -1;
+}
+
 // Counts the number of object types in a string concatenation.
 static NSUInteger CountObjectArgs(const char *types) {
   NSUInteger numObjs = 0;
@@ -81,6 +81,14 @@ __attribute__((always_inline)) inline void JreCheckFinalize(id self, Class cls)
 
 FOUNDATION_EXPORT jint JreIndexOfStr(NSString *str, NSString **values, jint size);
 
+/*!
+ * Returns the index of the string in values, or -1 if it isn't found. The
+ * values are sorted by their java.lang.String hash codes, which are passed
+ * in hashes.
+ */
+FOUNDATION_EXPORT jint JreIndexOfStrHashed(
+    NSString *str, NSString **values, const jint *hashes, jint size);
+
 /*!
  * Macros that simplify the syntax for loading of static fields.
  *
@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.benchmark;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.devtools.j2objc.J2ObjC;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.util.ErrorUtil;
+import com.google.devtools.j2objc.util.FileUtil;
+import com.google.devtools.j2objc.util.Parser;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The fixed set of sources translated by the translator benchmarks. The
+ * corpus is a mix of jre_emul classes from this tree and Guava classes from
+ * the Guava sources jar fetched by java_deps, so results are reproducible
+ * without network access and comparable between builds.
+ * <p/>
+ * The locations of the tree and its jars are passed as system properties by
+ * the translator Makefile's "benchmark" target.
+ */
+public final class Corpus {
+
+  public static final String ROOT_PROPERTY = "j2objc.benchmark.root";
+  public static final String BOOTCLASSPATH_PROPERTY = "j2objc.benchmark.bootclasspath";
+  public static final String CLASSPATH_PROPERTY = "j2objc.benchmark.classpath";
+  public static final String GUAVA_SOURCES_PROPERTY = "j2objc.benchmark.guavaSources";
+
+  // Source roots of jre_emul, relative to its directory. These are the
+  // JRE_SRC_ROOTS from jre_emul/environment.mk.
+  private static final List<String> JRE_SOURCE_ROOTS = ImmutableList.of(
+      "apache_harmony/classlib/modules/luni/src/main/java",
+      "apache_harmony/classlib/modules/luni-kernel/src/main/java",
+      "android/platform/libcore/dalvik/src/main/java",
+      "android/libcore/luni/src/main/java",
+      "android/libcore/xml/src/main/java",
+      "Classes",
+      "apache_harmony/classlib/modules/archive/src/main/java",
+      "android/frameworks/base/core/java",
+      "android/libcore/json/src/main/java",
+      "../annotations/src/main/java",
+      "apache_harmony/classlib/modules/beans/src/main/java",
+      "android/platform/libcore/luni/src/main/java",
+      "android/platform/libcore/luni/src/objc/java",
+      "android/platform/libcore/ojluni/src/main/java",
+      "android/platform/external/okhttp/okio/okio/src/main/java",
+      "android/platform/libcore/ojluni/src/lambda/java",
+      "openjdk/src/share/classes",
+      "stub_classes");
+
+  // Collections, concurrency, regex, text and stream sources, which between
+  // them exercise inner classes, lambdas, generics, enums, switches and OCNI.
+  private static final List<String> JRE_SOURCES = ImmutableList.of(
+      "android/platform/libcore/ojluni/src/main/java/java/io/BufferedReader.java",
+      "android/platform/libcore/ojluni/src/main/java/java/lang/StringBuilder.java",
+      "android/platform/libcore/ojluni/src/main/java/java/text/SimpleDateFormat.java",
+      "android/platform/libcore/ojluni/src/main/java/java/util/ArrayList.java",
+      "android/platform/libcore/ojluni/src/main/java/java/util/Collections.java",
+      "android/platform/libcore/ojluni/src/main/java/java/util/Formatter.java",
+      "android/platform/libcore/ojluni/src/main/java/java/util/HashMap.java",
+      "android/platform/libcore/ojluni/src/main/java/java/util/TreeMap.java",
+      "android/platform/libcore/ojluni/src/main/java/java/util/regex/Pattern.java",
+      "android/platform/libcore/ojluni/src/main/java/java/util/stream/ReferencePipeline.java",
+      "android/libcore/luni/src/main/java/java/util/concurrent/ConcurrentHashMap.java");
+
+  private static final List<String> GUAVA_SOURCES = ImmutableList.of(
+      "com/google/common/base/CharMatcher.java",
+      "com/google/common/base/Splitter.java",
+      "com/google/common/cache/LocalCache.java",
+      "com/google/common/collect/ImmutableList.java",
+      "com/google/common/collect/Iterators.java",
+      "com/google/common/collect/Maps.java",
+      "com/google/common/primitives/Ints.java",
+      "com/google/common/util/concurrent/Futures.java");
+
+  private final File tempDir;
+  private final Options options;
+  private final List<String> paths;
+
+  private Corpus(File tempDir, Options options, List<String> paths) {
+    this.tempDir = tempDir;
+    this.options = options;
+    this.paths = paths;
+  }
+
+  /**
+   * Loads the corpus, and the options to translate it with. Output files are
+   * written to a temporary directory, which is deleted by {@link #close}.
+   */
+  public static Corpus load() throws IOException {
+    ErrorUtil.setTestMode();
+    File root = new File(getProperty(ROOT_PROPERTY));
+    File jreDir = new File(root, "jre_emul");
+    File guavaSources = new File(getProperty(GUAVA_SOURCES_PROPERTY));
+    File tempDir = FileUtil.createTempDir("j2objc-benchmark");
+
+    List<String> paths = Lists.newArrayList();
+    for (String source : JRE_SOURCES) {
+      paths.add(checkExists(new File(jreDir, source)).getAbsolutePath());
+    }
+    File guavaDir = new File(tempDir, "guava");
+    try (ZipFile jar = new ZipFile(checkExists(guavaSources))) {
+      for (String source : GUAVA_SOURCES) {
+        paths.add(extract(jar, source, guavaDir).getAbsolutePath());
+      }
+    }
+
+    List<String> sourcepath = Lists.newArrayList();
+    for (String sourceRoot : JRE_SOURCE_ROOTS) {
+      sourcepath.add(new File(jreDir, sourceRoot).getAbsolutePath());
+    }
+    sourcepath.add(guavaSources.getAbsolutePath());
+
+    Options options = new Options();
+    options.load(new String[] {
+        "-d", new File(tempDir, "out").getAbsolutePath(),
+        "-sourcepath", Joiner.on(File.pathSeparatorChar).join(sourcepath),
+        "-classpath", getProperty(CLASSPATH_PROPERTY),
+        "-Xbootclasspath:" + getProperty(BOOTCLASSPATH_PROPERTY),
+        // Generate implementations of the jre_emul classes in the corpus.
+        "-Xtranslate-bootclasspath",
+        "-encoding", "UTF-8",
+        "-q"
+    });
+    options.getHeaderMap().loadMappings();
+    return new Corpus(tempDir, options, ImmutableList.copyOf(paths));
+  }
+
+  public Options options() {
+    return options;
+  }
+
+  /**
+   * Returns the absolute paths of the corpus' source files.
+   */
+  public List<String> paths() {
+    return paths;
+  }
+
+  public Parser newParser() {
+    return J2ObjC.createParser(options);
+  }
+
+  /**
+   * Parses the corpus as a single batch, and returns its converted trees.
+   */
+  public List<CompilationUnit> parse(Parser parser) {
+    List<CompilationUnit> units = Lists.newArrayListWithCapacity(paths.size());
+    parser.parseFiles(paths, (path, unit) -> units.add(unit), options.getSourceVersion());
+    checkErrors();
+    return units;
+  }
+
+  /**
+   * Fails the benchmark if the corpus didn't compile, since its results would
+   * be meaningless.
+   */
+  public static void checkErrors() {
+    if (ErrorUtil.errorCount() > 0) {
+      String messages = Joiner.on('\n').join(ErrorUtil.getErrorMessages());
+      ErrorUtil.reset();
+      throw new IllegalStateException("corpus translation failed:\n" + messages);
+    }
+  }
+
+  public void close() {
+    FileUtil.deleteTempDir(tempDir);
+  }
+
+  private static String getProperty(String name) {
+    String value = System.getProperty(name);
+    if (value == null) {
+      throw new IllegalStateException(
+          "system property " + name + " not set, run benchmarks with \"make benchmark\"");
+    }
+    return value;
+  }
+
+  private static File checkExists(File file) {
+    if (!file.exists()) {
+      throw new IllegalStateException("corpus file not found: " + file);
+    }
+    return file;
+  }
+
+  private static File extract(ZipFile jar, String name, File dir) throws IOException {
+    ZipEntry entry = jar.getEntry(name);
+    if (entry == null) {
+      throw new IllegalStateException("corpus file not found: " + jar.getName() + "!" + name);
+    }
+    File file = new File(dir, name);
+    file.getParentFile().mkdirs();
+    try (InputStream in = jar.getInputStream(entry);
+        OutputStream out = new FileOutputStream(file)) {
+      ByteStreams.copy(in, out);
+    }
+    return file;
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.benchmark;
+
+import com.google.common.collect.Lists;
+import com.google.devtools.j2objc.ast.Block;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.FunctionDeclaration;
+import com.google.devtools.j2objc.ast.MethodDeclaration;
+import com.google.devtools.j2objc.ast.TreeVisitor;
+import com.google.devtools.j2objc.gen.GenerationUnit;
+import com.google.devtools.j2objc.gen.SourceBuilder;
+import com.google.devtools.j2objc.gen.StatementGenerator;
+import com.google.devtools.j2objc.pipeline.TranslationProcessor;
+import com.google.devtools.j2objc.util.Parser;
+import com.google.devtools.j2objc.util.TimeTracker;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks code generation from the translated benchmark corpus:
+ * <ul>
+ * <li>statementGeneration: {@link StatementGenerator} output for every method
+ * and function body,</li>
+ * <li>typeGeneration: the per-type declarations and implementations that
+ * {@link GenerationUnit#addCompilationUnit} builds with {@link SourceBuilder},
+ * and</li>
+ * <li>sourceGeneration: assembling and writing the header and implementation
+ * files from those types.</li>
+ * </ul>
+ * Generation doesn't modify the translated trees, so the corpus is only
+ * translated once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GenerationBenchmark {
+
+  @Benchmark
+  public void statementGeneration(Translated translated, Blackhole bh) {
+    for (Block body : translated.bodies) {
+      bh.consume(StatementGenerator.generate(body, SourceBuilder.BEGINNING_OF_FILE));
+    }
+  }
+
+  @Benchmark
+  public List<GenerationUnit> typeGeneration(Translated translated) {
+    return translated.newGenerationUnits();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  public void sourceGeneration(Generated generated) {
+    for (GenerationUnit genUnit : generated.genUnits) {
+      TranslationProcessor.generateObjectiveCSource(genUnit);
+    }
+  }
+
+  /**
+   * The corpus after all translation passes.
+   */
+  @State(Scope.Benchmark)
+  public static class Translated {
+
+    Corpus corpus;
+    Parser parser;
+    List<CompilationUnit> units;
+    List<Block> bodies = Lists.newArrayList();
+
+    @Setup(Level.Trial)
+    public void translate() throws IOException {
+      corpus = Corpus.load();
+      parser = corpus.newParser();
+      units = corpus.parse(parser);
+      for (CompilationUnit unit : units) {
+        TranslationProcessor.applyMutations(unit, null, TimeTracker.noop());
+        unit.accept(new TreeVisitor() {
+          @Override
+          public void endVisit(MethodDeclaration node) {
+            addBody(node.getBody());
+          }
+
+          @Override
+          public void endVisit(FunctionDeclaration node) {
+            addBody(node.getBody());
+          }
+        });
+      }
+      Corpus.checkErrors();
+    }
+
+    private void addBody(Block body) {
+      if (body != null) {
+        bodies.add(body);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+      for (CompilationUnit unit : units) {
+        unit.getEnv().reset();
+      }
+      parser.close();
+      corpus.close();
+    }
+
+    List<GenerationUnit> newGenerationUnits() {
+      List<GenerationUnit> genUnits = Lists.newArrayListWithCapacity(units.size());
+      for (CompilationUnit unit : units) {
+        GenerationUnit genUnit = new GenerationUnit(unit.getSourceFilePath(), corpus.options());
+        genUnit.incrementInputs();
+        genUnit.addCompilationUnit(unit);
+        genUnits.add(genUnit);
+      }
+      return genUnits;
+    }
+  }
+
+  /**
+   * New generation units for the translated corpus. A unit can only be
+   * written once.
+   */
+  @State(Scope.Thread)
+  public static class Generated {
+
+    List<GenerationUnit> genUnits;
+
+    @Setup(Level.Invocation)
+    public void generateTypes(Translated translated) {
+      genUnits = translated.newGenerationUnits();
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.benchmark;
+
+import com.google.common.collect.Lists;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.pipeline.TranslationProcessor;
+import com.google.devtools.j2objc.util.Parser;
+import com.google.devtools.j2objc.util.TimeTracker;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks each pass of {@link TranslationProcessor#applyMutations} on the
+ * benchmark corpus.
+ * <p/>
+ * Passes only work on trees that the passes before them have mutated, so for
+ * each invocation the corpus is parsed and every unit is mutated up to the
+ * benchmarked pass on its own thread, which then waits. The benchmark runs the
+ * pass by releasing the units' threads one at a time, and waiting until each
+ * has completed the pass. Only one thread mutates trees at any time, since
+ * javac's symbol tables aren't thread-safe. The pass boundaries are found with
+ * the TimeTracker that applyMutations ticks after each pass, so the measured
+ * time includes two thread handoffs per unit, which is insignificant compared
+ * to any pass on a whole source file.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class TranslationPassBenchmark {
+
+  // The ticks of TranslationProcessor.applyMutations with the default
+  // options. DeadCodeEliminator and UnsequencedExpressionRewriter need flags.
+  @Param({
+    "LambdaTypeElementAdder",
+    "OuterReferenceResolver",
+    "GwtConverter",
+    "NumberMethodRewriter",
+    "ConstantBranchPruner",
+    "Rewriter",
+    "AbstractMethodRewriter",
+    "VariableRenamer",
+    "EnhancedForRewriter",
+    "LambdaRewriter",
+    "Autoboxer",
+    "InnerClassExtractor",
+    "DefaultMethodShimGenerator",
+    "InitializationNormalizer",
+    "NilCheckResolver",
+    "LabelRewriter",
+    "VarargsRewriter",
+    "JavaCloneWriter",
+    "OcniExtractor",
+    "PackageInfoRewriter",
+    "AnnotationRewriter",
+    "EnumRewriter",
+    "DestructorGenerator",
+    "MetadataWriter",
+    "JavaToIOSMethodTranslator",
+    "Functionizer",
+    "SuperMethodInvocationRewriter",
+    "OperatorRewriter",
+    "StaticVarRewriter",
+    "ArrayRewriter",
+    "SwitchRewriter",
+    "ComplexExpressionExtractor",
+    "CastResolver",
+    "PrivateDeclarationResolver"
+  })
+  public String pass;
+
+  private Corpus corpus;
+  private String previousPass;
+  private Parser parser;
+  private List<UnitMutator> mutators;
+
+  @Setup(Level.Trial)
+  public void loadCorpus() throws IOException {
+    corpus = Corpus.load();
+    previousPass = findPreviousPass();
+  }
+
+  @TearDown(Level.Trial)
+  public void closeCorpus() {
+    corpus.close();
+  }
+
+  /**
+   * Returns the pass that runs before the benchmarked pass, or null if it's
+   * the first pass.
+   */
+  private String findPreviousPass() throws IOException {
+    List<String> passes = Lists.newArrayList();
+    TimeTracker recorder = new TimeTracker() {
+      @Override
+      public void tick(String event) {
+        passes.add(event);
+      }
+    };
+    Parser parser = corpus.newParser();
+    try {
+      // One unit is enough, since all units run the same passes.
+      CompilationUnit unit = corpus.parse(parser).get(0);
+      TranslationProcessor.applyMutations(unit, null, recorder);
+    } finally {
+      parser.close();
+    }
+    int index = passes.indexOf(pass);
+    if (index < 0) {
+      throw new IllegalArgumentException("not a translation pass: " + pass);
+    }
+    return index > 0 ? passes.get(index - 1) : null;
+  }
+
+  @Setup(Level.Invocation)
+  public void mutateToPass() throws InterruptedException {
+    parser = corpus.newParser();
+    mutators = Lists.newArrayList();
+    for (CompilationUnit unit : corpus.parse(parser)) {
+      UnitMutator mutator = new UnitMutator(unit);
+      mutators.add(mutator);
+      mutator.start();
+      mutator.awaitPause();
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void finishMutations() throws InterruptedException, IOException {
+    for (UnitMutator mutator : mutators) {
+      mutator.resume();
+      mutator.join();
+      if (mutator.failure != null) {
+        throw new IllegalStateException(mutator.failure);
+      }
+      mutator.unit.getEnv().reset();
+    }
+    mutators = null;
+    parser.close();
+    Corpus.checkErrors();
+  }
+
+  @Benchmark
+  public int runPass() throws InterruptedException {
+    for (UnitMutator mutator : mutators) {
+      mutator.resume();
+      mutator.awaitPause();
+    }
+    return mutators.size();
+  }
+
+  /**
+   * Mutates one unit, pausing before and after the benchmarked pass.
+   */
+  private class UnitMutator extends Thread {
+
+    private final CompilationUnit unit;
+    // Holds false if the mutations failed.
+    private final BlockingQueue<Boolean> paused = new ArrayBlockingQueue<>(1);
+    private final SynchronousQueue<Boolean> resumed = new SynchronousQueue<>();
+    private volatile Throwable failure;
+
+    private UnitMutator(CompilationUnit unit) {
+      super("j2objc-benchmark-" + unit.getMainTypeName());
+      this.unit = unit;
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        mutate();
+      } catch (Throwable t) {
+        failure = t;
+        paused.add(false);
+      }
+    }
+
+    private void mutate() {
+      TranslationProcessor.applyMutations(unit, null, new TimeTracker() {
+        @Override
+        public void push() {
+          if (previousPass == null) {
+            pause();
+          }
+        }
+
+        @Override
+        public void tick(String event) {
+          if (event.equals(previousPass) || event.equals(pass)) {
+            pause();
+          }
+        }
+      });
+    }
+
+    private void pause() {
+      try {
+        paused.put(true);
+        resumed.take();
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    void awaitPause() throws InterruptedException {
+      if (!paused.take()) {
+        throw new IllegalStateException("translation of " + unit.getMainTypeName() + " failed",
+            failure);
+      }
+    }
+
+    void resume() throws InterruptedException {
+      resumed.put(true);
+    }
+  }
+}
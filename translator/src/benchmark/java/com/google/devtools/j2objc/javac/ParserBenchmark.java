@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.javac;
+
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.benchmark.Corpus;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.tools.javac.tree.JCTree;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks the javac front end on the benchmark corpus: parsing and
+ * attribution followed by conversion with {@link JavacParser#parseFiles},
+ * and {@link TreeConverter} conversion of already attributed trees.
+ * <p/>
+ * Each invocation uses a new parser, since javac's symbol tables can't be
+ * reused between compilations.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParserBenchmark {
+
+  @Benchmark
+  public List<CompilationUnit> parseFiles(Sources sources) {
+    return sources.corpus.parse(sources.parser);
+  }
+
+  @Benchmark
+  public List<CompilationUnit> convertTrees(Attributed attributed) {
+    List<CompilationUnit> units = new ArrayList<>(attributed.javacUnits.size());
+    for (CompilationUnitTree javacUnit : attributed.javacUnits) {
+      units.add(TreeConverter.convertCompilationUnit(
+          attributed.corpus.options(), attributed.env, (JCTree.JCCompilationUnit) javacUnit));
+    }
+    return units;
+  }
+
+  /**
+   * The corpus' source files, and a new parser for them.
+   */
+  @State(Scope.Thread)
+  public static class Sources {
+
+    Corpus corpus;
+    JavacParser parser;
+
+    @Setup(Level.Trial)
+    public void loadCorpus() throws IOException {
+      corpus = Corpus.load();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeCorpus() {
+      corpus.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void createParser() {
+      parser = (JavacParser) corpus.newParser();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeParser() throws IOException {
+      parser.close();
+      parser = null;
+    }
+  }
+
+  /**
+   * The corpus after javac parsing and attribution, but before conversion.
+   */
+  @State(Scope.Thread)
+  public static class Attributed {
+
+    Corpus corpus;
+    JavacParser parser;
+    JavacEnvironment env;
+    List<CompilationUnitTree> javacUnits;
+
+    @Setup(Level.Trial)
+    public void loadCorpus() throws IOException {
+      corpus = Corpus.load();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeCorpus() {
+      corpus.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void analyze() throws IOException {
+      parser = (JavacParser) corpus.newParser();
+      javacUnits = new ArrayList<>();
+      env = parser.analyzeFiles(corpus.paths(), javacUnits);
+      Corpus.checkErrors();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeParser() throws IOException {
+      parser.close();
+      parser = null;
+      env = null;
+      javacUnits = null;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import com.google.devtools.j2objc.Options.TimingLevel;
 import com.google.devtools.j2objc.pipeline.GenerationBatch;
 import com.google.devtools.j2objc.pipeline.InputFilePreprocessor;
 import com.google.devtools.j2objc.pipeline.ProcessingContext;
+import com.google.devtools.j2objc.pipeline.TranslationCache;
 import com.google.devtools.j2objc.pipeline.TranslationProcessor;
 import com.google.devtools.j2objc.util.CodeReferenceMap;
 import com.google.devtools.j2objc.util.ErrorUtil;
@@ -90,6 +91,7 @@ public class J2ObjC {
     File preProcessorTempDir = null;
     File strippedSourcesDir = null;
     Parser parser = null;
+    TranslationProcessor translationProcessor = null;
     try {
       List<ProcessingContext> inputs = Lists.newArrayList();
       GenerationBatch batch = new GenerationBatch(options);
@@ -98,6 +100,10 @@ public class J2ObjC {
       if (ErrorUtil.errorCount() > 0) {
         return;
       }
+      TranslationCache translationCache = TranslationCache.create(options);
+      if (translationCache != null) {
+        translationCache.removeUpToDateInputs(inputs);
+      }
 
       parser = createParser(options);
       Parser.ProcessingResult processingResult = parser.processAnnotations(fileArgs, inputs);
@@ -122,10 +128,10 @@ public class J2ObjC {
       }
 
       options.getHeaderMap().loadMappings();
-      TranslationProcessor translationProcessor =
-          new TranslationProcessor(parser, loadDeadCodeMap());
+      translationProcessor = new TranslationProcessor(parser, loadDeadCodeMap(), translationCache);
       translationProcessor.processInputs(inputs);
       translationProcessor.processBuildClosureDependencies();
+      translationProcessor.awaitGeneration();
       if (ErrorUtil.errorCount() > 0) {
         return;
       }
@@ -133,6 +139,12 @@ public class J2ObjC {
 
       options.getHeaderMap().printMappings();
     } finally {
+      if (translationProcessor != null) {
+        translationProcessor.awaitGeneration();
+      }
+      if (options.timingProfile() != null) {
+        options.timingProfile().write();
+      }
       if (parser != null) {
         try {
           parser.close();
@@ -159,6 +171,15 @@ public class J2ObjC {
     if (args.length == 0) {
       Options.help(true);
     }
+    if (args.length == 1 && args[0].equals(TranslationServer.SERVER_FLAG)) {
+      try {
+        new TranslationServer(System.in, System.out).run();
+      } catch (IOException e) {
+        ErrorUtil.error(e.getMessage());
+        System.exit(1);
+      }
+      return;
+    }
     long startTime = System.currentTimeMillis();
 
     List<String> files = null;
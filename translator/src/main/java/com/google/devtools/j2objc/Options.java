@@ -22,17 +22,21 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
+import com.google.devtools.j2objc.util.CodeReferenceMap;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.HeaderMap;
 import com.google.devtools.j2objc.util.Mappings;
 import com.google.devtools.j2objc.util.PackageInfoLookup;
 import com.google.devtools.j2objc.util.PackagePrefixes;
+import com.google.devtools.j2objc.util.ProGuardUsageParser;
 import com.google.devtools.j2objc.util.SourceVersion;
+import com.google.devtools.j2objc.util.TimingProfile;
 import com.google.devtools.j2objc.util.Version;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -71,12 +75,22 @@ public class Options {
   private boolean docCommentsEnabled = false;
   private boolean staticAccessorMethods = false;
   private int batchTranslateMaximum = -1;
+  private boolean adaptiveBatchTranslation = false;
+  private int translationJobs = 1;
+  private File cacheDirectory = null;
+  // The flags and flag values passed to the translator, excluding source files.
+  private List<String> translationFlags = new ArrayList<>();
   private String processors = null;
   private boolean disallowInheritedConstructors = false;
   private boolean swiftFriendly = false;
   private boolean nullability = false;
+  private boolean assumeNonnull = false;
+  private boolean indexedListLoops = false;
+  private boolean writeIfChanged = false;
+  private boolean sharedMetadataTables = false;
   private EnumSet<LintOption> lintOptions = EnumSet.noneOf(LintOption.class);
   private TimingLevel timingLevel = TimingLevel.NONE;
+  private TimingProfile timingProfile = null;
   private boolean dumpAST = false;
   private String lintArgument = null;
   private boolean reportJavadocWarnings = false;
@@ -99,6 +113,12 @@ public class Options {
 
   private static File proGuardUsageFile = null;
 
+  // Set by the translation server, so that an invalid request fails instead
+  // of exiting the process.
+  private static boolean throwOnExit = false;
+  private File finalMethodsReportFile = null;
+  private CodeReferenceMap effectivelyFinalMethods = null;
+
   private static String fileHeader;
   private static final String FILE_HEADER_KEY = "file-header";
   private static String usageMessage;
@@ -109,6 +129,7 @@ public class Options {
   private static final String X_HELP_MSG_KEY = "x-help-message";
   private static final String XBOOTCLASSPATH = "-Xbootclasspath:";
   private static final String BATCH_PROCESSING_MAX_FLAG = "--batch-translate-max=";
+  private static final String JOBS_FLAG = "--jobs=";
   private static final String TIMING_INFO_ARG = "--timing-info";
   private static final String ENV_FRONT_END_FLAG = "J2OBJC_FRONT_END";
 
@@ -376,11 +397,16 @@ public class Options {
       if (!args.hasNext()) {
         usage(arg + " requires an argument");
       }
-      return args.next();
+      String value = args.next();
+      translationFlags.add(value);
+      return value;
     }
 
     private void processArg(Iterator<String> args) throws IOException {
       String arg = args.next();
+      if (!processingSourceFiles && arg.startsWith("-")) {
+        translationFlags.add(arg);
+      }
       if (arg.isEmpty()) {
         return;
       } else if (arg.startsWith("@")) {
@@ -395,6 +421,8 @@ public class Options {
         processorPathEntries.addAll(getPathArgument(getArgValue(args, arg)));
       } else if (arg.equals("-d")) {
         fileUtil.setOutputDirectory(new File(getArgValue(args, arg)));
+      } else if (arg.equals("--cache-dir")) {
+        cacheDirectory = new File(getArgValue(args, arg));
       } else if (arg.equals("--mapping")) {
         mappings.addMappingsFiles(getArgValue(args, arg).split(","));
       } else if (arg.equals("--header-mapping")) {
@@ -403,6 +431,10 @@ public class Options {
         headerMap.setOutputMappingFile(new File(getArgValue(args, arg)));
       } else if (arg.equals("--dead-code-report")) {
         proGuardUsageFile = new File(getArgValue(args, arg));
+      } else if (arg.equals("--final-methods-report")) {
+        finalMethodsReportFile = new File(getArgValue(args, arg));
+        effectivelyFinalMethods = ProGuardUsageParser.parse(
+            Files.asCharSource(finalMethodsReportFile, Charset.defaultCharset()));
       } else if (arg.equals("--prefix")) {
         addPrefixOption(getArgValue(args, arg));
       } else if (arg.equals("--prefixes")) {
@@ -449,6 +481,8 @@ public class Options {
         } catch (IllegalArgumentException e) {
           usage("invalid --timing-info argument");
         }
+      } else if (arg.equals("--timing-profile")) {
+        timingProfile = new TimingProfile(new File(getArgValue(args, arg)));
       } else if (arg.equals("-v") || arg.equals("--verbose")) {
         setLogLevel(Level.FINEST);
       } else if (arg.startsWith(XBOOTCLASSPATH)) {
@@ -479,9 +513,21 @@ public class Options {
         docCommentsEnabled = true;
       } else if (arg.equals("--doc-comment-warnings")) {
         reportJavadocWarnings = true;
+      } else if (arg.equals(BATCH_PROCESSING_MAX_FLAG + "auto")) {
+        adaptiveBatchTranslation = true;
       } else if (arg.startsWith(BATCH_PROCESSING_MAX_FLAG)) {
         batchTranslateMaximum =
             Integer.parseInt(arg.substring(BATCH_PROCESSING_MAX_FLAG.length()));
+      } else if (arg.startsWith(JOBS_FLAG)) {
+        String jobsArg = arg.substring(JOBS_FLAG.length());
+        try {
+          translationJobs = Integer.parseInt(jobsArg);
+        } catch (NumberFormatException e) {
+          usage("invalid --jobs argument: " + jobsArg);
+        }
+        if (translationJobs < 1) {
+          usage("--jobs requires a positive number");
+        }
       } else if (arg.equals("--static-accessor-methods")) {
         staticAccessorMethods = true;
       } else if (arg.equals("--swift-friendly")) {
@@ -492,6 +538,14 @@ public class Options {
         disallowInheritedConstructors = false;
       } else if (arg.equals("--nullability")) {
         nullability = true;
+      } else if (arg.equals("--assume-nonnull")) {
+        assumeNonnull = true;
+      } else if (arg.equals("--indexed-list-loops")) {
+        indexedListLoops = true;
+      } else if (arg.equals("--write-if-changed")) {
+        writeIfChanged = true;
+      } else if (arg.equals("--shared-metadata-tables")) {
+        sharedMetadataTables = true;
       } else if (arg.startsWith("-Xlint")) {
         lintArgument = arg;
         lintOptions = LintOption.parse(arg);
@@ -557,6 +611,14 @@ public class Options {
           + "-XincludeGeneratedSources");
     }
 
+    // Up-to-date sources are skipped before their header mappings are collected.
+    if (cacheDirectory != null && (buildClosure || headerMap.useSourceDirectories()
+        || headerMap.writesOutputMapping())) {
+      ErrorUtil.error(
+          "--cache-dir is not supported with --build-closure or -XcombineJars or "
+          + "--preserve-full-paths or -XincludeGeneratedSources or --output-header-mapping");
+    }
+
     if (memoryManagementOption == null) {
       memoryManagementOption = MemoryManagementOption.REFERENCE_COUNTING;
     }
@@ -571,7 +633,10 @@ public class Options {
       sourceVersion = SourceVersion.parse(System.getProperty("java.version").substring(0, 3));
     }
 
-    if (isJDT()) {
+    if (adaptiveBatchTranslation) {
+      // Batches are limited by source size and heap use, not by file count.
+      batchTranslateMaximum = Integer.MAX_VALUE;
+    } else if (isJDT()) {
       // Java 6 had a 1G max heap limit, removed in Java 7.
       if (batchTranslateMaximum == -1) {  // Not set by flag.
         batchTranslateMaximum = SourceVersion.java7Minimum(sourceVersion) ? 300 : 0;
@@ -605,6 +670,9 @@ public class Options {
   }
 
   public static void usage(String invalidUseMsg) {
+    if (throwOnExit) {
+      throw new ExitException(1, invalidUseMsg);
+    }
     System.err.println("j2objc: " + invalidUseMsg);
     System.err.println(usageMessage);
     System.exit(1);
@@ -613,17 +681,50 @@ public class Options {
   public static void help(boolean errorExit) {
     System.err.println(helpMessage);
     // javac exits with 2, but any non-zero value works.
-    System.exit(errorExit ? 2 : 0);
+    exit(errorExit ? 2 : 0);
   }
 
   public static void xhelp() {
     System.err.println(xhelpMessage);
-    System.exit(0);
+    exit(0);
   }
 
   public static void version() {
     System.err.println("j2objc " + Version.jarVersion(Options.class));
-    System.exit(0);
+    exit(0);
+  }
+
+  private static void exit(int status) {
+    if (throwOnExit) {
+      throw new ExitException(status, null);
+    }
+    System.exit(status);
+  }
+
+  /**
+   * Makes invalid flags, help and version requests throw an
+   * {@link ExitException} instead of exiting the process.
+   */
+  static void setThrowOnExit(boolean b) {
+    throwOnExit = b;
+  }
+
+  /**
+   * Thrown instead of exiting when {@link #setThrowOnExit} is set.
+   */
+  @SuppressWarnings("serial")
+  static class ExitException extends RuntimeException {
+
+    private final int status;
+
+    ExitException(int status, String message) {
+      super(message);
+      this.status = status;
+    }
+
+    int getStatus() {
+      return status;
+    }
   }
 
   private static List<String> getPathArgument(String argument) {
@@ -731,6 +832,28 @@ public class Options {
     return proGuardUsageFile;
   }
 
+  /**
+   * The report passed with --final-methods-report, or null if it wasn't
+   * specified.
+   */
+  public File getFinalMethodsReportFile() {
+    return finalMethodsReportFile;
+  }
+
+  /**
+   * The instance methods that have no overrides in the whole program, which
+   * can be called directly, or null if --final-methods-report wasn't
+   * specified.
+   */
+  public CodeReferenceMap getEffectivelyFinalMethods() {
+    return effectivelyFinalMethods;
+  }
+
+  @VisibleForTesting
+  public void setEffectivelyFinalMethods(CodeReferenceMap methods) {
+    effectivelyFinalMethods = methods;
+  }
+
   public List<String> getBootClasspath() {
     return getPathArgument(bootclasspath);
   }
@@ -809,6 +932,49 @@ public class Options {
     batchTranslateMaximum = max;
   }
 
+  /**
+   * Returns true if batch sizes are adapted to the source size and heap use,
+   * with --batch-translate-max=auto.
+   */
+  public boolean adaptiveBatchTranslation() {
+    return adaptiveBatchTranslation;
+  }
+
+  @VisibleForTesting
+  public void setAdaptiveBatchTranslation(boolean b) {
+    adaptiveBatchTranslation = b;
+  }
+
+  /**
+   * The number of worker threads used to translate sources and generate
+   * output files. Sources are translated in shards, each with its own parser,
+   * unless building a closure or using the JDT front end.
+   */
+  public int translationJobs() {
+    return translationJobs;
+  }
+
+  @VisibleForTesting
+  public void setTranslationJobs(int jobs) {
+    translationJobs = jobs;
+  }
+
+  /**
+   * The directory for cached translation results, or null if caching is disabled.
+   */
+  public File getCacheDirectory() {
+    return cacheDirectory;
+  }
+
+  @VisibleForTesting
+  public void setCacheDirectory(File dir) {
+    cacheDirectory = dir;
+  }
+
+  public List<String> getTranslationFlags() {
+    return translationFlags;
+  }
+
   public SourceVersion getSourceVersion(){
     return sourceVersion;
   }
@@ -865,6 +1031,57 @@ public class Options {
     nullability = b;
   }
 
+  /**
+   * Whether values declared Nonnull, and final fields that are only assigned
+   * new objects, are dereferenced without nil checks.
+   */
+  public boolean assumeNonnull() {
+    return assumeNonnull;
+  }
+
+  @VisibleForTesting
+  public void setAssumeNonnull(boolean b) {
+    assumeNonnull = b;
+  }
+
+  /**
+   * Whether enhanced for loops over final RandomAccess list types are
+   * translated as indexed get() loops.
+   */
+  public boolean indexedListLoops() {
+    return indexedListLoops;
+  }
+
+  @VisibleForTesting
+  public void setIndexedListLoops(boolean b) {
+    indexedListLoops = b;
+  }
+
+  /**
+   * Whether output files whose content is unchanged are left as they are.
+   */
+  public boolean writeIfChanged() {
+    return writeIfChanged;
+  }
+
+  @VisibleForTesting
+  public void setWriteIfChanged(boolean b) {
+    writeIfChanged = b;
+  }
+
+  /**
+   * Whether the types of an output file share one reflection metadata pointer
+   * table.
+   */
+  public boolean sharedMetadataTables() {
+    return sharedMetadataTables;
+  }
+
+  @VisibleForTesting
+  public void setSharedMetadataTables(boolean b) {
+    sharedMetadataTables = b;
+  }
+
   public EnumSet<LintOption> lintOptions() {
     return lintOptions;
   }
@@ -877,6 +1094,19 @@ public class Options {
     return timingLevel;
   }
 
+  /**
+   * The profile that aggregates all translation timings, or null if
+   * --timing-profile wasn't specified.
+   */
+  public TimingProfile timingProfile() {
+    return timingProfile;
+  }
+
+  @VisibleForTesting
+  public void setTimingProfile(TimingProfile profile) {
+    timingProfile = profile;
+  }
+
   public boolean dumpAST() {
     return dumpAST;
   }
@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.devtools.j2objc.javac.JavacParser;
+import com.google.devtools.j2objc.util.ErrorUtil;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs translations requested on an input stream in a single long-running
+ * process, started with "j2objc -Xserver". This avoids paying the JVM startup,
+ * class loading and class path indexing costs on every translation.
+ * <p/>
+ * Each request is one line with the same arguments as a j2objc command line,
+ * separated by whitespace. As in a shell, arguments can be quoted with single
+ * or double quotes, and a backslash escapes the next character, so paths may
+ * contain spaces. When a request completes, a line with the format
+ * "j2objc-server: done &lt;errors&gt; &lt;warnings&gt;" is printed to the output
+ * stream. Invalid flags are reported as errors of the request. While serving,
+ * everything the translator prints to System.out is redirected to System.err,
+ * so the output stream only has these lines. The server exits at the end of
+ * the input stream.
+ */
+class TranslationServer {
+
+  static final String SERVER_FLAG = "-Xserver";
+  static final String DONE_PREFIX = "j2objc-server: done ";
+
+  private final BufferedReader in;
+  private final PrintStream out;
+
+  TranslationServer(InputStream in, PrintStream out) {
+    this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    this.out = out;
+  }
+
+  void run() throws IOException {
+    PrintStream stdout = System.out;
+    System.setOut(System.err);
+    JavacParser.setRetainFileManagers(true);
+    Options.setThrowOnExit(true);
+    try {
+      String line;
+      while ((line = in.readLine()) != null) {
+        List<String> args = splitArgs(line);
+        if (args == null) {
+          ErrorUtil.reset();
+          ErrorUtil.error("unterminated quote in request: " + line);
+          printDone();
+        } else if (!args.isEmpty()) {
+          translate(args.toArray(new String[args.size()]));
+        }
+      }
+    } finally {
+      Options.setThrowOnExit(false);
+      JavacParser.setRetainFileManagers(false);
+      System.setOut(stdout);
+    }
+  }
+
+  /**
+   * Splits a request into arguments, or returns null if a quote isn't closed.
+   */
+  @VisibleForTesting
+  static List<String> splitArgs(String line) {
+    List<String> args = new ArrayList<>();
+    StringBuilder arg = null;
+    char quote = 0;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '\\' && quote != '\'' && i + 1 < line.length()) {
+        // Backslashes escape any character, except within single quotes.
+        arg = arg != null ? arg : new StringBuilder();
+        arg.append(line.charAt(++i));
+      } else if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        } else {
+          arg.append(c);
+        }
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+        arg = arg != null ? arg : new StringBuilder();
+      } else if (Character.isWhitespace(c)) {
+        if (arg != null) {
+          args.add(arg.toString());
+          arg = null;
+        }
+      } else {
+        arg = arg != null ? arg : new StringBuilder();
+        arg.append(c);
+      }
+    }
+    if (quote != 0) {
+      return null;
+    }
+    if (arg != null) {
+      args.add(arg.toString());
+    }
+    return args;
+  }
+
+  private void translate(String[] args) {
+    ErrorUtil.reset();
+    // The dead code report is the only static option.
+    Options.setProGuardUsageFile(null);
+    try {
+      Options options = new Options();
+      List<String> files = options.load(args);
+      if (files.isEmpty()) {
+        ErrorUtil.error("no source files");
+      } else {
+        J2ObjC.run(files, options);
+      }
+    } catch (Options.ExitException e) {
+      if (e.getStatus() != 0) {
+        ErrorUtil.error(e.getMessage() != null ? e.getMessage() : "invalid arguments");
+      }
+    } catch (IOException e) {
+      ErrorUtil.error(e.getMessage());
+    } catch (RuntimeException e) {
+      ErrorUtil.fatalError(e, String.join(" ", args));
+    }
+    printDone();
+  }
+
+  private void printDone() {
+    out.println(DONE_PREFIX + ErrorUtil.errorCount() + " " + ErrorUtil.warningCount());
+    out.flush();
+  }
+}
@@ -16,6 +16,7 @@ package com.google.devtools.j2objc.ast;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.devtools.j2objc.util.MetadataPointerTables;
 import com.google.devtools.j2objc.util.TranslationEnvironment;
 import java.util.List;
 
@@ -32,6 +33,9 @@ public class CompilationUnit extends TreeNode {
   private boolean hasIncompleteProtocol = false;
   private boolean hasIncompleteImplementation = false;
   private boolean hasNullabilityAnnotations = false;
+  // The metadata pointer tables that the unit's types share. Units that are
+  // generated into the same output file are given the same tables.
+  private MetadataPointerTables metadataPointerTables = new MetadataPointerTables();
   private final ChildLink<PackageDeclaration> packageDeclaration =
       ChildLink.create(PackageDeclaration.class, this);
   private final ChildList<Comment> comments = ChildList.create(Comment.class, this);
@@ -66,6 +70,7 @@ public class CompilationUnit extends TreeNode {
     comments.copyFrom(other.getCommentList());
     nativeBlocks.copyFrom(other.getNativeBlocks());
     types.copyFrom(other.getTypes());
+    metadataPointerTables = other.getMetadataPointerTables();
   }
 
   @Override
@@ -133,6 +138,14 @@ public class CompilationUnit extends TreeNode {
     return types;
   }
 
+  public MetadataPointerTables getMetadataPointerTables() {
+    return metadataPointerTables;
+  }
+
+  public void setMetadataPointerTables(MetadataPointerTables metadataPointerTables) {
+    this.metadataPointerTables = metadataPointerTables;
+  }
+
   public int getLineNumber(int position) {
     if (position < 0 || position >= source.length()) {
       return -1;
@@ -24,8 +24,13 @@ import com.google.devtools.j2objc.ast.NativeDeclaration;
 import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.file.InputFile;
 import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.MetadataPointerTables;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.TreeMap;
 import javax.annotation.Nullable;
 
@@ -51,6 +56,10 @@ public class GenerationUnit {
   private TreeMap<String, String> nativeImplementationBlocks = new TreeMap<>();
   private ListMultimap<String, GeneratedType> generatedTypes =
       MultimapBuilder.treeKeys().arrayListValues().build();
+  // The metadata pointer tables that translated compilation units share. The
+  // tables of each added unit are kept once, in the order they were added.
+  private final MetadataPointerTables sharedMetadataPointerTables = new MetadataPointerTables();
+  private final Set<MetadataPointerTables> metadataPointerTables = new LinkedHashSet<>();
   private final String sourceName;
   private State state = State.ACTIVE;
   private boolean hasIncompleteProtocol = false;
@@ -129,6 +138,33 @@ public class GenerationUnit {
     return nativeImplementationBlocks.values();
   }
 
+  /**
+   * Returns the metadata pointer tables to be shared by the types of all the
+   * compilation units generated into this unit's output file.
+   */
+  public MetadataPointerTables getSharedMetadataPointerTables() {
+    return sharedMetadataPointerTables;
+  }
+
+  /**
+   * The declarations of the metadata pointer tables used by the unit's types,
+   * which are printed after all the types' private declarations.
+   */
+  public Collection<String> getMetadataPointerTables() {
+    List<String> code = new ArrayList<>();
+    for (MetadataPointerTables tables : metadataPointerTables) {
+      SourceBuilder builder = new SourceBuilder(false);
+      for (String declaration : tables.getDeclarations()) {
+        builder.newline();
+        builder.println(declaration);
+      }
+      if (builder.length() > 0) {
+        code.add(builder.toString());
+      }
+    }
+    return code;
+  }
+
   public Collection<GeneratedType> getGeneratedTypes() {
     return generatedTypes.values();
   }
@@ -173,6 +209,7 @@ public class GenerationUnit {
     String qualifiedMainType = TreeUtil.getQualifiedMainTypeName(unit);
     addPackageJavadoc(unit, qualifiedMainType);
     addNativeBlocks(unit, qualifiedMainType);
+    metadataPointerTables.add(unit.getMetadataPointerTables());
 
     for (AbstractTypeDeclaration type : unit.getTypes()) {
       generatedTypes.put(qualifiedMainType, GeneratedType.fromTypeDeclaration(type));
@@ -57,6 +57,10 @@ public class ObjectiveCImplementationGenerator extends ObjectiveCSourceFileGener
     for (GeneratedType generatedType : getOrderedTypes()) {
       print(generatedType.getPrivateDeclarationCode());
     }
+    // The shared metadata tables refer to the private declarations of any type.
+    for (String code : getGenerationUnit().getMetadataPointerTables()) {
+      print(code);
+    }
     for (GeneratedType generatedType : getOrderedTypes()) {
       print(generatedType.getImplementationCode());
     }
@@ -26,6 +26,7 @@ import com.google.devtools.j2objc.util.UnicodeUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -106,7 +107,12 @@ public abstract class ObjectiveCSourceFileGenerator extends AbstractSourceGenera
         source += '\n';
       }
 
-      Files.write(source, outputFile, unit.options().fileUtil().getCharset());
+      byte[] content = source.getBytes(unit.options().fileUtil().getCharset());
+      boolean unchanged = unit.options().writeIfChanged() && hasContent(outputFile, content);
+      if (!unchanged) {
+        Files.write(content, outputFile);
+      }
+      ErrorUtil.outputFile(unchanged);
     } catch (IOException e) {
       ErrorUtil.error(e.getMessage());
     } finally {
@@ -114,6 +120,11 @@ public abstract class ObjectiveCSourceFileGenerator extends AbstractSourceGenera
     }
   }
 
+  private static boolean hasContent(File file, byte[] content) throws IOException {
+    return file.isFile() && file.length() == content.length
+        && Arrays.equals(Files.toByteArray(file), content);
+  }
+
   /** Ignores deprecation warnings. Deprecation warnings should be visible for human authored code,
    *  not transpiled code. This method should be paired with popIgnoreDeprecatedDeclarationsPragma.
    */
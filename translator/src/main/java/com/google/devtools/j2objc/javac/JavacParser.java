@@ -14,6 +14,7 @@
 
 package com.google.devtools.j2objc.javac;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.ast.CompilationUnit;
@@ -53,7 +54,17 @@ import javax.tools.ToolProvider;
  * @author Tom Ball
  */
 public class JavacParser extends Parser {
-  
+
+  // When set, file managers are kept open after a parser is closed, so a
+  // long-running translation server doesn't reopen and index the class path
+  // archives for every translation.
+  private static boolean retainFileManagers = false;
+  private static JavacFileManager retainedFileManager = null;
+  private static String retainedFileManagerKey = null;
+  // The parser using the retained file manager; parsers running at the same
+  // time on other threads get a file manager of their own.
+  private static JavacParser retainedFileManagerOwner = null;
+
   private JavacFileManager fileManager; 
 
   public JavacParser(Options options){
@@ -99,10 +110,21 @@ public class JavacParser extends Parser {
     return null;
   }
 
+  /**
+   * Keeps the file manager of closed parsers open, for use by later parsers
+   * with the same paths.
+   */
+  public static synchronized void setRetainFileManagers(boolean retain) {
+    retainFileManagers = retain;
+  }
+
   private JavacFileManager getFileManager(JavaCompiler compiler,
       DiagnosticCollector<JavaFileObject> diagnostics) throws IOException {
-    fileManager = (JavacFileManager)
-        compiler.getStandardFileManager(diagnostics, null, options.fileUtil().getCharset());
+    fileManager = retainFileManagers ? getRetainedFileManager(compiler, diagnostics) : null;
+    if (fileManager == null) {
+      fileManager = (JavacFileManager) compiler.getStandardFileManager(
+          diagnostics, null, options.fileUtil().getCharset());
+    }
     addPaths(StandardLocation.CLASS_PATH, classpathEntries, fileManager);
     addPaths(StandardLocation.SOURCE_PATH, sourcepathEntries, fileManager);
     addPaths(StandardLocation.PLATFORM_CLASS_PATH, options.getBootClasspath(), fileManager);
@@ -117,6 +139,42 @@ public class JavacParser extends Parser {
     return fileManager;
   }
 
+  private JavacFileManager getRetainedFileManager(JavaCompiler compiler,
+      DiagnosticCollector<JavaFileObject> diagnostics) throws IOException {
+    synchronized (JavacParser.class) {
+      if (retainedFileManagerOwner != null && retainedFileManagerOwner != this) {
+        return null;
+      }
+      // Archives are indexed when first opened, so a file manager can't be
+      // reused once a class path entry has changed.
+      String key = getFileManagerKey();
+      if (retainedFileManager != null && !key.equals(retainedFileManagerKey)) {
+        retainedFileManager.close();
+        retainedFileManager = null;
+      }
+      if (retainedFileManager == null) {
+        retainedFileManager = (JavacFileManager)
+            compiler.getStandardFileManager(diagnostics, null, options.fileUtil().getCharset());
+        retainedFileManagerKey = key;
+      }
+      retainedFileManagerOwner = this;
+      return retainedFileManager;
+    }
+  }
+
+  private String getFileManagerKey() {
+    StringBuilder sb = new StringBuilder(options.fileUtil().getCharset().name());
+    List<String> paths = new ArrayList<>(classpathEntries);
+    paths.addAll(options.getBootClasspath());
+    paths.addAll(options.getProcessorPathEntries());
+    for (String path : paths) {
+      File f = new File(path);
+      sb.append(File.pathSeparatorChar).append(f.getAbsolutePath())
+          .append('@').append(f.lastModified()).append(':').append(f.length());
+    }
+    return sb.toString();
+  }
+
   private void addPaths(Location location, List<String> paths, JavacFileManager fileManager)
       throws IOException {
     List<File> filePaths = new ArrayList<>();
@@ -154,19 +212,9 @@ public class JavacParser extends Parser {
 
   @Override
   public void parseFiles(Collection<String> paths, Handler handler, SourceVersion sourceVersion) {
-    List<File> files = new ArrayList<>();
-    for (String path : paths) {
-      files.add(new File(path));
-    }
     try {
-      JavacEnvironment env = createEnvironment(files, null, false);
       List<CompilationUnitTree> units = new ArrayList<>();
-      for (CompilationUnitTree unit : env.task().parse()) {
-        units.add(unit);
-      }
-      env.task().analyze();
-      processDiagnostics(env.diagnostics());
-
+      JavacEnvironment env = analyzeFiles(paths, units);
       if (ErrorUtil.errorCount() == 0) {
         for (CompilationUnitTree ast : units) {
           com.google.devtools.j2objc.ast.CompilationUnit unit = TreeConverter
@@ -180,6 +228,27 @@ public class JavacParser extends Parser {
     }
   }
 
+  /**
+   * Parses and attributes a batch of source files with javac, adding their
+   * trees to units. The trees are converted separately, so conversion can be
+   * benchmarked on its own.
+   */
+  @VisibleForTesting
+  JavacEnvironment analyzeFiles(Collection<String> paths, List<CompilationUnitTree> units)
+      throws IOException {
+    List<File> files = new ArrayList<>();
+    for (String path : paths) {
+      files.add(new File(path));
+    }
+    JavacEnvironment env = createEnvironment(files, null, false);
+    for (CompilationUnitTree unit : env.task().parse()) {
+      units.add(unit);
+    }
+    env.task().analyze();
+    processDiagnostics(env.diagnostics());
+    return env;
+  }
+
   // Creates a javac environment from a memory source.
   private JavacEnvironment createEnvironment(String path, String source) throws IOException {
     List<JavaFileObject> inputFiles = new ArrayList<>();
@@ -264,6 +333,14 @@ public class JavacParser extends Parser {
   
   @Override
   public void close() throws IOException {
+    synchronized (JavacParser.class) {
+      if (retainedFileManagerOwner == this) {
+        retainedFileManagerOwner = null;
+        if (fileManager == retainedFileManager) {
+          fileManager = null;
+        }
+      }
+    }
     if (fileManager != null) {
       try {
         fileManager.close();
@@ -14,6 +14,7 @@
 
 package com.google.devtools.j2objc.pipeline;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.devtools.j2objc.Options;
@@ -24,11 +25,16 @@ import com.google.devtools.j2objc.util.FileUtil;
 import com.google.devtools.j2objc.util.Parser;
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.DoubleSupplier;
 import java.util.logging.Logger;
 
 /**
@@ -49,11 +55,16 @@ abstract class FileProcessor {
 
   private final boolean doBatching;
 
+  // Null unless --batch-translate-max=auto was specified.
+  private final AdaptiveBatchLimit batchLimit;
+
   public FileProcessor(Parser parser) {
     this.parser = Preconditions.checkNotNull(parser);
     this.options = parser.options();
     batchSize = options.batchTranslateMaximum();
     doBatching = batchSize > 0;
+    batchLimit = options.adaptiveBatchTranslation()
+        ? new AdaptiveBatchLimit(FileProcessor::heapUseAfterCollection) : null;
     if (options.buildClosure()) {
       // Should be an error if the user specifies this with --build-closure
       assert !options.getHeaderMap().useSourceDirectories();
@@ -63,6 +74,10 @@ abstract class FileProcessor {
     }
   }
 
+  protected Parser parser() {
+    return parser;
+  }
+
   public void processInputs(Iterable<ProcessingContext> inputs) {
     for (ProcessingContext input : inputs) {
       processInput(input);
@@ -92,7 +107,11 @@ abstract class FileProcessor {
 
       if (isBatchable(file)) {
         batchInputs.add(input);
-        if (batchInputs.size() == batchSize) {
+        if (batchLimit != null) {
+          if (batchLimit.addSource(new File(file.getAbsolutePath()).length())) {
+            processBatch();
+          }
+        } else if (batchInputs.size() == batchSize) {
           processBatch();
         }
         return;
@@ -135,10 +154,17 @@ abstract class FileProcessor {
         ProcessingContext input = inputMap.get(path);
         processCompiledSource(input, unit);
         batchInputs.remove(input);
+        if (batchLimit != null) {
+          // The batch's trees are all retained until the last unit is handled.
+          batchLimit.sampleHeapUse();
+        }
       }
     };
     logger.finest("Processing batch of size " + batchInputs.size());
     parser.parseFiles(paths, handler, options.getSourceVersion());
+    if (batchLimit != null) {
+      batchLimit.endBatch();
+    }
 
     // Any remaining files in batchFiles has some kind of error.
     for (ProcessingContext input : batchInputs) {
@@ -148,6 +174,25 @@ abstract class FileProcessor {
     batchInputs.clear();
   }
 
+  /**
+   * Returns the highest use of a heap memory pool after its last garbage
+   * collection, as a fraction of the pool's maximum size. Unlike the current
+   * heap use, this doesn't count garbage that hasn't been collected yet.
+   */
+  private static double heapUseAfterCollection() {
+    double heapUse = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+      if (usage != null) {
+        long max = usage.getMax() > 0 ? usage.getMax() : usage.getCommitted();
+        if (max > 0) {
+          heapUse = Math.max(heapUse, (double) usage.getUsed() / max);
+        }
+      }
+    }
+    return heapUse;
+  }
+
   private void processCompiledSource(ProcessingContext input,
       com.google.devtools.j2objc.ast.CompilationUnit unit) {
     InputFile file = input.getFile();
@@ -200,4 +245,61 @@ abstract class FileProcessor {
       }
     }
   }
+
+  /**
+   * Limits each batch by the size of its sources, for
+   * --batch-translate-max=auto. The limit is halved after a batch that came
+   * close to exhausting the heap, or doubled after a full batch that left
+   * plenty of headroom.
+   */
+  @VisibleForTesting
+  static class AdaptiveBatchLimit {
+
+    static final long INITIAL_BATCH_BYTES = 2L * 1024 * 1024;
+    static final long MIN_BATCH_BYTES = 128L * 1024;
+    static final long MAX_BATCH_BYTES = 64L * 1024 * 1024;
+    static final double HIGH_HEAP_USE = 0.7;
+    static final double LOW_HEAP_USE = 0.35;
+
+    private final DoubleSupplier heapUse;
+    private long limit = INITIAL_BATCH_BYTES;
+    private long batchBytes = 0;
+    private double peakHeapUse = 0;
+
+    AdaptiveBatchLimit(DoubleSupplier heapUse) {
+      this.heapUse = heapUse;
+    }
+
+    /**
+     * Adds a source of the current batch, and returns true if the batch has
+     * reached the limit.
+     */
+    boolean addSource(long bytes) {
+      batchBytes += bytes;
+      return batchBytes >= limit;
+    }
+
+    void sampleHeapUse() {
+      peakHeapUse = Math.max(peakHeapUse, heapUse.getAsDouble());
+    }
+
+    /**
+     * Sets the limit of the next batch.
+     */
+    void endBatch() {
+      if (peakHeapUse >= HIGH_HEAP_USE) {
+        limit = Math.max(MIN_BATCH_BYTES, limit / 2);
+      } else if (peakHeapUse < LOW_HEAP_USE && batchBytes >= limit) {
+        limit = Math.min(MAX_BATCH_BYTES, limit * 2);
+      }
+      logger.finest(String.format("batch of %d bytes, peak heap use %.2f, next limit %d bytes",
+          batchBytes, peakHeapUse, limit));
+      batchBytes = 0;
+      peakHeapUse = 0;
+    }
+
+    long getLimit() {
+      return limit;
+    }
+  }
 }
@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.devtools.j2objc.gen.GenerationUnit;
+import com.google.devtools.j2objc.util.ErrorUtil;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * The output generation threads of {@link TranslationProcessor}, used when
+ * --jobs is greater than one. This isn't a pipeline with a stage per step:
+ * parsing, attribution, tree mutations and per-type code generation all need
+ * the same thread-confined javac state, so they run together on each
+ * translation shard's thread, or on the calling thread when the inputs
+ * aren't sharded. Each shard adds its fully translated GenerationUnits here,
+ * and the worker threads assemble and write their header and implementation
+ * files while the shards go on translating.
+ * <p/>
+ * The queue is bounded, and a shard blocks when it's full, so the generated
+ * code waiting to be written is bounded by the queue depth rather than by the
+ * number of inputs.
+ */
+class GenerationQueue {
+
+  private static final Logger logger = Logger.getLogger(GenerationQueue.class.getName());
+
+  // Units queued per worker thread, so workers rarely wait on the shards.
+  private static final int QUEUE_DEPTH_PER_JOB = 2;
+
+  private final ThreadPoolExecutor executor;
+  private final Consumer<GenerationUnit> generator;
+
+  GenerationQueue(int jobs, Consumer<GenerationUnit> generator) {
+    this.generator = generator;
+    executor = new ThreadPoolExecutor(jobs, jobs, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(jobs * QUEUE_DEPTH_PER_JOB),
+        new WorkerThreadFactory("j2objc-generator-"),
+        (task, pool) -> {
+          // Block the translation shard until there is room in the queue.
+          try {
+            pool.getQueue().put(task);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+          }
+        });
+  }
+
+  /**
+   * Adds a unit whose compilation units have all been translated.
+   */
+  void add(GenerationUnit unit) {
+    executor.execute(() -> {
+      try {
+        generator.accept(unit);
+      } catch (Throwable t) {
+        ErrorUtil.fatalError(t, unit.getSourceName());
+      }
+    });
+  }
+
+  /**
+   * Waits until the output files of all added units are written. No units
+   * can be added afterwards.
+   */
+  void finish() {
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+        logger.finest("waiting for output generation to complete");
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+      ErrorUtil.error("interrupted while generating output files");
+    }
+  }
+
+  /**
+   * Creates daemon threads, so a failed translation can exit without
+   * shutting down the workers.
+   */
+  static class WorkerThreadFactory implements ThreadFactory {
+
+    private final String namePrefix;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    WorkerThreadFactory(String namePrefix) {
+      this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, namePrefix + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
+import com.google.devtools.j2objc.ast.Expression;
+import com.google.devtools.j2objc.ast.Name;
+import com.google.devtools.j2objc.ast.TreeNode;
+import com.google.devtools.j2objc.ast.TreeVisitor;
+import com.google.devtools.j2objc.ast.Type;
+import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.TypeUtil;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Collects the top-level types that a compilation unit references, and all of
+ * their supertypes. Must run before the tree mutations, since they replace
+ * references to compile-time constants with their values.
+ */
+class ReferencedTypeCollector extends TreeVisitor {
+
+  private final Set<TypeElement> types = new HashSet<>();
+
+  /**
+   * Returns the qualified names of the types referenced by a unit.
+   */
+  static Set<String> collect(TreeNode unit) {
+    ReferencedTypeCollector collector = new ReferencedTypeCollector();
+    unit.accept(collector);
+    Set<String> names = new TreeSet<>();
+    for (TypeElement type : collector.types) {
+      if (ElementUtil.isTopLevel(type) && !ElementUtil.isIosType(type)) {
+        names.add(ElementUtil.getQualifiedName(type));
+      }
+    }
+    return names;
+  }
+
+  @Override
+  public boolean preVisit(TreeNode node) {
+    if (node instanceof AbstractTypeDeclaration) {
+      addType(((AbstractTypeDeclaration) node).getTypeElement());
+    } else if (node instanceof Type) {
+      addType(((Type) node).getTypeMirror());
+    } else if (node instanceof Expression) {
+      addType(((Expression) node).getTypeMirror());
+      if (node instanceof Name) {
+        // The declaring type of a referenced field, method or type, including
+        // constants whose values are inlined.
+        addElement(((Name) node).getElement());
+      }
+    }
+    return true;
+  }
+
+  private void addElement(Element element) {
+    if (element == null) {
+      return;
+    }
+    addType(ElementUtil.isTypeElement(element)
+        ? (TypeElement) element : ElementUtil.getDeclaringClass(element));
+  }
+
+  private void addType(TypeMirror type) {
+    while (type != null && type.getKind() == TypeKind.ARRAY) {
+      type = ((ArrayType) type).getComponentType();
+    }
+    if (type != null) {
+      addType(TypeUtil.asTypeElement(type));
+    }
+  }
+
+  private void addType(TypeElement type) {
+    if (type == null || !types.add(type)) {
+      return;
+    }
+    if (!ElementUtil.isTopLevel(type)) {
+      addType(ElementUtil.getDeclaringClass(type));
+    }
+    addType(type.getSuperclass());
+    for (TypeMirror supertype : type.getInterfaces()) {
+      addType(supertype);
+    }
+  }
+}
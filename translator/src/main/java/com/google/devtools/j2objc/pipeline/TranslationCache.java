@@ -0,0 +1,383 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.pipeline;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.devtools.j2objc.Options;
+import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.file.InputFile;
+import com.google.devtools.j2objc.gen.GeneratedType;
+import com.google.devtools.j2objc.gen.GenerationUnit;
+import com.google.devtools.j2objc.types.Import;
+import com.google.devtools.j2objc.util.ErrorUtil;
+import com.google.devtools.j2objc.util.Version;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * An on-disk cache of translation results, enabled by --cache-dir. An entry
+ * is recorded for each translated generation unit, and contains hashes of:
+ * <ul>
+ * <li>the translation flags, j2objc version, classpath and bootclasspath,</li>
+ * <li>the unit's source file,</li>
+ * <li>the sourcepath files of the types the source or the generated code
+ * references, including their supertypes and the types of inlined
+ * constants, and</li>
+ * <li>the generated .h and .m files.</li>
+ * </ul>
+ * An input is skipped when all of these still match, since translating it
+ * again would produce the same output files. Entries are only written by
+ * {@link #commit} after a translation without errors, so inputs that failed or
+ * reported errors are translated again.
+ */
+public class TranslationCache {
+
+  private static final Logger logger = Logger.getLogger(TranslationCache.class.getName());
+  private static final HashFunction HASH_FUNCTION = Hashing.sha1();
+
+  private static final String ENVIRONMENT_KEY = "environment";
+  private static final String SOURCE_KEY = "source";
+  private static final String DEPENDENCY_PREFIX = "dep.";
+  private static final String OUTPUT_PREFIX = "out.";
+
+  // Flags that don't change the generated files, so aren't in the environment hash.
+  private static final ImmutableSet<String> NON_OUTPUT_FLAGS = ImmutableSet.of(
+      "-v", "--verbose", "-l", "--list", "-t", "--timing-info", "--write-if-changed");
+  private static final ImmutableList<String> NON_OUTPUT_FLAG_PREFIXES = ImmutableList.of(
+      "--timing-info:", "--jobs=", "--batch-translate-max=");
+  private static final ImmutableSet<String> NON_OUTPUT_VALUE_FLAGS = ImmutableSet.of(
+      "--cache-dir", "--timing-profile");
+  // Flags whose comma-separated files change the generated files, so their
+  // contents are in the environment hash.
+  private static final ImmutableSet<String> FILE_VALUE_FLAGS = ImmutableSet.of(
+      "--dead-code-report", "--final-methods-report", "--header-mapping", "--mapping",
+      "--prefixes");
+
+  private final Options options;
+  private final File cacheDir;
+  private final String environmentHash;
+
+  // Source hashes of the inputs being translated, keyed by generation unit
+  // source name. Recorded before preprocessing, which may replace an input's file.
+  private final Map<String, String> sourceHashes = new ConcurrentHashMap<>();
+
+  // The types referenced by the sources of each generation unit, keyed by
+  // source name. Each unit's set is only modified by the thread translating it.
+  private final Map<String, Set<String>> referencedTypes = new ConcurrentHashMap<>();
+
+  // New entries, written when the translation completes successfully.
+  private final Map<String, Properties> pendingEntries = new ConcurrentHashMap<>();
+
+  private int skippedCount = 0;
+
+  private TranslationCache(Options options, File cacheDir) {
+    this.options = options;
+    this.cacheDir = cacheDir;
+    environmentHash = hashEnvironment(options);
+  }
+
+  /**
+   * Returns a new cache if --cache-dir was specified, otherwise null.
+   */
+  public static TranslationCache create(Options options) {
+    File cacheDir = options.getCacheDirectory();
+    if (cacheDir == null) {
+      return null;
+    }
+    if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+      ErrorUtil.warning("cannot create cache directory: " + cacheDir);
+      return null;
+    }
+    return new TranslationCache(options, cacheDir);
+  }
+
+  /**
+   * Removes all inputs whose cached outputs are up-to-date.
+   */
+  public void removeUpToDateInputs(List<ProcessingContext> inputs) {
+    for (Iterator<ProcessingContext> iter = inputs.iterator(); iter.hasNext(); ) {
+      if (isUpToDate(iter.next())) {
+        iter.remove();
+        skippedCount++;
+      }
+    }
+    if (skippedCount > 0) {
+      logger.info(String.format("skipping %d up-to-date %s", skippedCount,
+          skippedCount == 1 ? "file" : "files"));
+    }
+  }
+
+  /**
+   * Returns the number of inputs that were skipped because their outputs
+   * were up-to-date.
+   */
+  public int skippedCount() {
+    return skippedCount;
+  }
+
+  @VisibleForTesting
+  boolean isUpToDate(ProcessingContext input) {
+    String sourceName = input.getGenerationUnit().getSourceName();
+    String sourceHash = hashInputFile(input.getFile());
+    if (sourceHash == null) {
+      return false;
+    }
+    sourceHashes.put(sourceName, sourceHash);
+
+    Properties entry = readEntry(sourceName);
+    if (entry == null
+        || !environmentHash.equals(entry.getProperty(ENVIRONMENT_KEY))
+        || !sourceHash.equals(entry.getProperty(SOURCE_KEY))) {
+      return false;
+    }
+    boolean hasOutputs = false;
+    for (String key : entry.stringPropertyNames()) {
+      String expected = entry.getProperty(key);
+      if (key.startsWith(DEPENDENCY_PREFIX)) {
+        if (!expected.equals(hashDependency(key.substring(DEPENDENCY_PREFIX.length())))) {
+          return false;
+        }
+      } else if (key.startsWith(OUTPUT_PREFIX)) {
+        File output = new File(
+            options.fileUtil().getOutputDirectory(), key.substring(OUTPUT_PREFIX.length()));
+        if (!expected.equals(hashFile(output))) {
+          return false;
+        }
+        hasOutputs = true;
+      }
+    }
+    return hasOutputs;
+  }
+
+  /**
+   * Records the types a compilation unit of a generation unit references.
+   * Must be called before the tree mutations, which inline the values of
+   * compile-time constants.
+   */
+  public void recordReferencedTypes(GenerationUnit genUnit, CompilationUnit unit) {
+    String sourceName = genUnit.getSourceName();
+    if (sourceHashes.containsKey(sourceName)) {
+      referencedTypes.computeIfAbsent(sourceName, k -> Sets.newTreeSet())
+          .addAll(ReferencedTypeCollector.collect(unit));
+    }
+  }
+
+  /**
+   * Creates the entry for a generation unit whose output files were written.
+   * May be called from output generation threads.
+   */
+  public void update(GenerationUnit unit) {
+    String sourceName = unit.getSourceName();
+    String sourceHash = sourceHashes.get(sourceName);
+    if (sourceHash == null || unit.getOutputPath() == null) {
+      // Not a cacheable input, such as an annotation processor generated source.
+      return;
+    }
+    Properties entry = new Properties();
+    entry.setProperty(ENVIRONMENT_KEY, environmentHash);
+    entry.setProperty(SOURCE_KEY, sourceHash);
+    for (String dependency : getDependencies(unit)) {
+      String hash = hashDependency(dependency);
+      if (hash != null) {
+        entry.setProperty(DEPENDENCY_PREFIX + dependency, hash);
+      }
+    }
+    File outputDir = options.fileUtil().getOutputDirectory();
+    String[] outputPaths = {
+      unit.getOutputPath() + ".h",
+      unit.getOutputPath() + options.getLanguage().suffix()
+    };
+    for (String path : outputPaths) {
+      String hash = hashFile(new File(outputDir, path));
+      if (hash == null) {
+        return;
+      }
+      entry.setProperty(OUTPUT_PREFIX + path, hash);
+    }
+    pendingEntries.put(sourceName, entry);
+  }
+
+  /**
+   * Writes the entries of all units translated by this run.
+   */
+  public void commit() {
+    for (Map.Entry<String, Properties> entry : pendingEntries.entrySet()) {
+      writeEntry(entry.getKey(), entry.getValue());
+    }
+    pendingEntries.clear();
+  }
+
+  private Set<String> getDependencies(GenerationUnit unit) {
+    Set<String> dependencies = Sets.newTreeSet();
+    Set<String> referenced = referencedTypes.remove(unit.getSourceName());
+    if (referenced != null) {
+      dependencies.addAll(referenced);
+    }
+    for (GeneratedType type : unit.getGeneratedTypes()) {
+      addDependencies(dependencies, type.getHeaderForwardDeclarations());
+      addDependencies(dependencies, type.getHeaderIncludes());
+      addDependencies(dependencies, type.getImplementationForwardDeclarations());
+      addDependencies(dependencies, type.getImplementationIncludes());
+    }
+    return dependencies;
+  }
+
+  private static void addDependencies(Set<String> dependencies, Set<Import> imports) {
+    for (Import imp : imports) {
+      String qualifiedName = imp.getJavaQualifiedName();
+      if (qualifiedName != null) {
+        dependencies.add(qualifiedName);
+      }
+    }
+  }
+
+  /**
+   * Returns the hash of a referenced type's source file, or an empty string if
+   * it isn't on the sourcepath. Types that are only on the classpath are
+   * covered by the environment hash.
+   */
+  private String hashDependency(String qualifiedName) {
+    try {
+      InputFile file = options.fileUtil().findOnSourcePath(qualifiedName);
+      return file != null ? hashInputFile(file) : "";
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static String hashInputFile(InputFile file) {
+    try (InputStream in = file.getInputStream()) {
+      return HASH_FUNCTION.hashBytes(ByteStreams.toByteArray(in)).toString();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static String hashFile(File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      return Files.hash(file, HASH_FUNCTION).toString();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Hashes everything besides the sources that can affect the translation:
+   * the translator version, its flags, the contents of the report, mapping
+   * and prefix files they name, and the entries of the class paths. Flags that only affect logging, threading or
+   * the cache itself are skipped, so changing them keeps the cache valid.
+   */
+  @VisibleForTesting
+  static String hashEnvironment(Options options) {
+    Hasher hasher = HASH_FUNCTION.newHasher();
+    hasher.putString(Version.jarVersion(Options.class), Charsets.UTF_8);
+    for (Iterator<String> iter = options.getTranslationFlags().iterator(); iter.hasNext(); ) {
+      String flag = iter.next();
+      if (NON_OUTPUT_VALUE_FLAGS.contains(flag)) {
+        if (iter.hasNext()) {
+          iter.next();
+        }
+      } else if (!isNonOutputFlag(flag)) {
+        hasher.putString(flag, Charsets.UTF_8).putChar('\0');
+        if (FILE_VALUE_FLAGS.contains(flag) && iter.hasNext()) {
+          String value = iter.next();
+          hasher.putString(value, Charsets.UTF_8).putChar('\0');
+          for (String path : value.split(",")) {
+            // Files that aren't found are loaded as translator resources,
+            // which are covered by the translator version.
+            hasher.putString(Strings.nullToEmpty(hashFile(new File(path))), Charsets.UTF_8)
+                .putChar('\0');
+          }
+        }
+      }
+    }
+    hashPathEntries(hasher, options.fileUtil().getClassPathEntries());
+    hashPathEntries(hasher, options.getBootClasspath());
+    return hasher.hash().toString();
+  }
+
+  private static boolean isNonOutputFlag(String flag) {
+    if (NON_OUTPUT_FLAGS.contains(flag)) {
+      return true;
+    }
+    for (String prefix : NON_OUTPUT_FLAG_PREFIXES) {
+      if (flag.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void hashPathEntries(Hasher hasher, List<String> entries) {
+    for (String entry : entries) {
+      File f = new File(entry);
+      hasher.putString(f.getAbsolutePath(), Charsets.UTF_8);
+      hasher.putLong(f.length());
+      hasher.putLong(f.lastModified());
+    }
+  }
+
+  private File getEntryFile(String sourceName) {
+    return new File(cacheDir, HASH_FUNCTION.hashString(sourceName, Charsets.UTF_8) + ".cache");
+  }
+
+  private Properties readEntry(String sourceName) {
+    File entryFile = getEntryFile(sourceName);
+    if (!entryFile.isFile()) {
+      return null;
+    }
+    Properties entry = new Properties();
+    try (InputStream in = new FileInputStream(entryFile)) {
+      entry.load(in);
+    } catch (IOException e) {
+      logger.fine("invalid cache entry " + entryFile + ": " + e.getMessage());
+      return null;
+    }
+    return entry;
+  }
+
+  private void writeEntry(String sourceName, Properties entry) {
+    File entryFile = getEntryFile(sourceName);
+    try (OutputStream out = new FileOutputStream(entryFile)) {
+      entry.store(out, sourceName);
+    } catch (IOException e) {
+      ErrorUtil.warning("cannot write cache entry for " + sourceName + ": " + e.getMessage());
+    }
+  }
+}
@@ -65,7 +65,17 @@ import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.Parser;
 import com.google.devtools.j2objc.util.TimeTracker;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -81,11 +91,112 @@ public class TranslationProcessor extends FileProcessor {
 
   private final CodeReferenceMap deadCodeMap;
 
+  // Null when output files are generated on the translation thread.
+  private final GenerationQueue generationQueue;
+
+  private final TranslationCache translationCache;
+
+  // True for the processors that translate one shard of the inputs.
+  private final boolean isShard;
+
   private int processedCount = 0;
 
   public TranslationProcessor(Parser parser, CodeReferenceMap deadCodeMap) {
+    this(parser, deadCodeMap, null);
+  }
+
+  public TranslationProcessor(
+      Parser parser, CodeReferenceMap deadCodeMap, TranslationCache translationCache) {
     super(parser);
     this.deadCodeMap = deadCodeMap;
+    this.translationCache = translationCache;
+    int jobs = options.translationJobs();
+    generationQueue = jobs > 1 ? new GenerationQueue(jobs, this::generate) : null;
+    isShard = false;
+  }
+
+  private TranslationProcessor(Parser parser, TranslationProcessor parent) {
+    super(parser);
+    deadCodeMap = parent.deadCodeMap;
+    translationCache = parent.translationCache;
+    generationQueue = parent.generationQueue;
+    isShard = true;
+  }
+
+  /**
+   * Translates the inputs. When --jobs is greater than one, the inputs are
+   * split into shards that are each parsed and translated on their own
+   * thread, with their own parser, since javac's compiler state isn't
+   * thread-safe.
+   */
+  @Override
+  public void processInputs(Iterable<ProcessingContext> inputs) {
+    List<List<ProcessingContext>> shards = shardInputs(inputs);
+    if (shards.size() < 2) {
+      super.processInputs(inputs);
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(
+        shards.size(), new GenerationQueue.WorkerThreadFactory("j2objc-translator-"));
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (List<ProcessingContext> shard : shards) {
+        results.add(executor.submit(() -> translateShard(shard)));
+      }
+      for (Future<Integer> result : results) {
+        processedCount += result.get();
+      }
+    } catch (ExecutionException e) {
+      ErrorUtil.fatalError(e.getCause(), "translation shard");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      ErrorUtil.error("interrupted while translating sources");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Splits the inputs into at most --jobs shards of similar size. The inputs
+   * of a generation unit are kept in the same shard, since a GenerationUnit
+   * is built on a single thread. A build closure is discovered while its
+   * sources are translated and the JDT front end has static caches, so
+   * neither is sharded.
+   */
+  private List<List<ProcessingContext>> shardInputs(Iterable<ProcessingContext> inputs) {
+    int jobs = options.translationJobs();
+    if (isShard || jobs < 2 || closureQueue != null || options.isJDT()) {
+      return Collections.emptyList();
+    }
+    Map<GenerationUnit, List<ProcessingContext>> groups = new LinkedHashMap<>();
+    for (ProcessingContext input : inputs) {
+      groups.computeIfAbsent(input.getGenerationUnit(), k -> new ArrayList<>()).add(input);
+    }
+    List<List<ProcessingContext>> shards = new ArrayList<>();
+    for (int i = 0; i < Math.min(jobs, groups.size()); i++) {
+      shards.add(new ArrayList<>());
+    }
+    for (List<ProcessingContext> group : groups.values()) {
+      List<ProcessingContext> smallest = shards.get(0);
+      for (List<ProcessingContext> shard : shards) {
+        if (shard.size() < smallest.size()) {
+          smallest = shard;
+        }
+      }
+      smallest.addAll(group);
+    }
+    return shards;
+  }
+
+  private int translateShard(List<ProcessingContext> inputs) throws IOException {
+    Parser shardParser = parser().newParserWithSamePaths();
+    try {
+      TranslationProcessor shardProcessor = new TranslationProcessor(shardParser, this);
+      shardProcessor.processInputs(inputs);
+      return shardProcessor.processedCount;
+    } finally {
+      shardParser.close();
+    }
   }
 
   @Override
@@ -94,17 +205,24 @@ public class TranslationProcessor extends FileProcessor {
     if (logger.isLoggable(Level.INFO)) {
       System.out.println("translating " + unitName);
     }
-    TimeTracker ticker = TimeTracker.getTicker(unitName, options.timingLevel());
+    TimeTracker ticker = TimeTracker.getTicker(unitName, options);
     if (options.dumpAST()) {
       // Dump compilation unit to an .ast output file instead of translating.
       DebugASTDump.dumpUnit(unit);
     } else {
+      if (translationCache != null) {
+        translationCache.recordReferencedTypes(input.getGenerationUnit(), unit);
+      }
+      // The types of a combined jar's units share the output file's tables.
+      unit.setMetadataPointerTables(input.getGenerationUnit().getSharedMetadataPointerTables());
       applyMutations(unit, deadCodeMap, ticker);
       ticker.tick("Tree mutations");
       ticker.printResults(System.out);
 
       GenerationUnit genUnit = input.getGenerationUnit();
       genUnit.addCompilationUnit(unit);
+      // Only recorded in the timing profile, since the results were printed.
+      ticker.tick("Type generation");
 
       // Add out-of-date dependencies to translation list.
       if (closureQueue != null) {
@@ -112,7 +230,7 @@ public class TranslationProcessor extends FileProcessor {
       }
 
       if (genUnit.isFullyParsed()) {
-        generateObjectiveCSource(genUnit);
+        scheduleGeneration(genUnit);
       }
     }
     processedCount++;
@@ -298,11 +416,43 @@ public class TranslationProcessor extends FileProcessor {
     ticker.pop();
   }
 
+  /**
+   * Writes the output files of a fully translated generation unit. A
+   * GenerationUnit only holds generated source strings and imports, not AST
+   * nodes or elements, so its output files can be assembled and written
+   * independently of the front end.
+   */
+  private void scheduleGeneration(GenerationUnit genUnit) {
+    if (generationQueue != null) {
+      generationQueue.add(genUnit);
+    } else {
+      generate(genUnit);
+    }
+  }
+
+  private void generate(GenerationUnit genUnit) {
+    generateObjectiveCSource(genUnit);
+    if (translationCache != null) {
+      translationCache.update(genUnit);
+    }
+  }
+
+  /**
+   * Waits for all scheduled output generation to complete and shuts down the
+   * generation threads. Must be called after all inputs and build closure
+   * dependencies have been processed, including when translation fails.
+   */
+  public void awaitGeneration() {
+    if (generationQueue != null) {
+      generationQueue.finish();
+    }
+  }
+
   @VisibleForTesting
   public static void generateObjectiveCSource(GenerationUnit unit) {
     assert unit.getOutputPath() != null;
     assert unit.isFullyParsed();
-    TimeTracker ticker = TimeTracker.getTicker(unit.getSourceName(), unit.options().timingLevel());
+    TimeTracker ticker = TimeTracker.getTicker(unit.getSourceName(), unit.options());
     logger.fine("Generating " + unit.getOutputPath());
     logger.finest("writing output file(s) to "
         + unit.options().fileUtil().getOutputDirectory().getAbsolutePath());
@@ -333,12 +483,22 @@ public class TranslationProcessor extends FileProcessor {
   }
 
   public void postProcess() {
+    if (translationCache != null
+        && !(options.treatWarningsAsErrors() && ErrorUtil.warningCount() > 0)) {
+      translationCache.commit();
+    }
     if (logger.isLoggable(Level.INFO)) {
       int nFiles = processedCount;
       System.out.println(String.format(
           "Translated %d %s: %d errors, %d warnings",
           nFiles, nFiles == 1 ? "file" : "files", ErrorUtil.errorCount(),
           ErrorUtil.warningCount()));
+      if (options.writeIfChanged()) {
+        int nOutputs = ErrorUtil.outputFileCount();
+        System.out.println(String.format("Wrote %d of %d output %s",
+            nOutputs - ErrorUtil.unchangedOutputFileCount(), nOutputs,
+            nOutputs == 1 ? "file" : "files"));
+      }
     }
     if (logger.isLoggable(Level.FINE)) {
       System.out.println(String.format("Translated %d methods as functions",
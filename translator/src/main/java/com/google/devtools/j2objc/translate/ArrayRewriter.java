@@ -21,16 +21,24 @@ import com.google.devtools.j2objc.ast.Assignment;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.ast.Expression;
 import com.google.devtools.j2objc.ast.FieldAccess;
+import com.google.devtools.j2objc.ast.ForStatement;
 import com.google.devtools.j2objc.ast.FunctionInvocation;
+import com.google.devtools.j2objc.ast.InfixExpression;
 import com.google.devtools.j2objc.ast.InstanceofExpression;
 import com.google.devtools.j2objc.ast.MethodInvocation;
 import com.google.devtools.j2objc.ast.NumberLiteral;
+import com.google.devtools.j2objc.ast.ParenthesizedExpression;
+import com.google.devtools.j2objc.ast.PostfixExpression;
 import com.google.devtools.j2objc.ast.PrefixExpression;
 import com.google.devtools.j2objc.ast.QualifiedName;
 import com.google.devtools.j2objc.ast.SimpleName;
+import com.google.devtools.j2objc.ast.Statement;
 import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
 import com.google.devtools.j2objc.ast.TypeLiteral;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
+import com.google.devtools.j2objc.ast.VariableDeclarationExpression;
+import com.google.devtools.j2objc.ast.VariableDeclarationFragment;
 import com.google.devtools.j2objc.types.ExecutablePair;
 import com.google.devtools.j2objc.types.FunctionElement;
 import com.google.devtools.j2objc.types.GeneratedExecutableElement;
@@ -40,12 +48,15 @@ import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.TranslationUtil;
 import com.google.devtools.j2objc.util.TypeUtil;
 import com.google.devtools.j2objc.util.UnicodeUtils;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 
 /**
@@ -55,6 +66,10 @@ import javax.lang.model.type.TypeMirror;
  */
 public class ArrayRewriter extends UnitTreeVisitor {
 
+  // The index variables of the enclosing counted loops, mapped to the arrays
+  // whose bounds they are always within in the loop bodies.
+  private final Map<VariableElement, VariableElement> boundedIndices = new HashMap<>();
+
   public ArrayRewriter(CompilationUnit unit) {
     super(unit);
   }
@@ -245,15 +260,228 @@ public class ArrayRewriter extends UnitTreeVisitor {
     return true;
   }
 
+  @Override
+  public boolean visit(ForStatement node) {
+    // The loop is analyzed before its children are rewritten, but the index
+    // is only bounded in the body.
+    VariableElement index = findBoundedIndex(node);
+    VariableElement array = index != null ? findBoundingArray(node) : null;
+    for (Expression initializer : node.getInitializers()) {
+      initializer.accept(this);
+    }
+    if (node.getExpression() != null) {
+      node.getExpression().accept(this);
+    }
+    for (Expression updater : node.getUpdaters()) {
+      updater.accept(this);
+    }
+    if (array != null) {
+      boundedIndices.put(index, array);
+    }
+    node.getBody().accept(this);
+    boundedIndices.remove(index);
+    return false;
+  }
+
+  /**
+   * Returns the index of a loop of the form
+   * "for (int i = c; i < a.length; i++)" or
+   * "for (int i = c, n = a.length; i < n; i++)", where c is a non-negative
+   * constant and a is a local variable. Returns null if the loop doesn't have
+   * that form, or if the index is modified by the loop body.
+   */
+  private VariableElement findBoundedIndex(ForStatement node) {
+    Map<VariableElement, Expression> declarations = getLoopDeclarations(node);
+    Expression condition = node.getExpression();
+    if (declarations == null || node.getUpdaters().size() != 1
+        || !(condition instanceof InfixExpression)
+        || ((InfixExpression) condition).getOperator() != InfixExpression.Operator.LESS) {
+      return null;
+    }
+    VariableElement index =
+        TreeUtil.getVariableElement(((InfixExpression) condition).getOperand(0));
+    if (index == null || !declarations.containsKey(index)
+        || index.asType().getKind() != TypeKind.INT) {
+      return null;
+    }
+    Object start = declarations.get(index).getConstantValue();
+    if (!(start instanceof Integer) || (Integer) start < 0) {
+      return null;
+    }
+    Expression updater = TreeUtil.trimParentheses(node.getUpdaters().get(0));
+    boolean isIncrement = false;
+    if (updater instanceof PostfixExpression) {
+      PostfixExpression postfix = (PostfixExpression) updater;
+      isIncrement = postfix.getOperator() == PostfixExpression.Operator.INCREMENT
+          && TreeUtil.getVariableElement(postfix.getOperand()) == index;
+    } else if (updater instanceof PrefixExpression) {
+      PrefixExpression prefix = (PrefixExpression) updater;
+      isIncrement = prefix.getOperator() == PrefixExpression.Operator.INCREMENT
+          && TreeUtil.getVariableElement(prefix.getOperand()) == index;
+    }
+    return isIncrement && !isModified(node.getBody(), index) ? index : null;
+  }
+
+  /**
+   * Returns the array whose length bounds the index of a loop that
+   * findBoundedIndex accepted, or null if the array or the variable holding
+   * its length are modified by the loop body.
+   */
+  private VariableElement findBoundingArray(ForStatement node) {
+    Map<VariableElement, Expression> declarations = getLoopDeclarations(node);
+    Expression bound = ((InfixExpression) node.getExpression()).getOperand(1);
+    VariableElement boundVar = TreeUtil.getVariableElement(bound);
+    if (boundVar != null && declarations.containsKey(boundVar)) {
+      if (isModified(node.getBody(), boundVar)) {
+        return null;
+      }
+      bound = declarations.get(boundVar);
+    }
+    VariableElement array = getLengthArray(bound);
+    return array != null && !isModified(node.getBody(), array) ? array : null;
+  }
+
+  /**
+   * Returns the variables declared by a loop's initializer, with their
+   * initial values, or null if the initializer isn't a single declaration
+   * that initializes every variable.
+   */
+  private static Map<VariableElement, Expression> getLoopDeclarations(ForStatement node) {
+    List<Expression> initializers = node.getInitializers();
+    if (initializers.size() != 1
+        || !(initializers.get(0) instanceof VariableDeclarationExpression)) {
+      return null;
+    }
+    Map<VariableElement, Expression> declarations = new HashMap<>();
+    for (VariableDeclarationFragment fragment :
+         ((VariableDeclarationExpression) initializers.get(0)).getFragments()) {
+      if (fragment.getInitializer() == null) {
+        return null;
+      }
+      declarations.put(fragment.getVariableElement(), fragment.getInitializer());
+    }
+    return declarations;
+  }
+
+  /**
+   * Returns the local variable or parameter a, if expr is "a.length".
+   */
+  private static VariableElement getLengthArray(Expression expr) {
+    expr = TreeUtil.trimParentheses(expr);
+    Expression array;
+    if (expr instanceof FieldAccess) {
+      FieldAccess fieldAccess = (FieldAccess) expr;
+      if (!fieldAccess.getName().getIdentifier().equals("length")) {
+        return null;
+      }
+      array = fieldAccess.getExpression();
+    } else if (expr instanceof QualifiedName) {
+      QualifiedName name = (QualifiedName) expr;
+      if (!name.getName().getIdentifier().equals("length")) {
+        return null;
+      }
+      array = name.getQualifier();
+    } else {
+      return null;
+    }
+    if (!TypeUtil.isArray(array.getTypeMirror())) {
+      return null;
+    }
+    VariableElement var = TreeUtil.getVariableElement(trimNilCheck(array));
+    return var != null && (ElementUtil.isLocalVariable(var) || ElementUtil.isParameter(var))
+        ? var : null;
+  }
+
+  private static Expression trimNilCheck(Expression expr) {
+    expr = TreeUtil.trimParentheses(expr);
+    if (expr instanceof FunctionInvocation
+        && ((FunctionInvocation) expr).getName().equals("nil_chk")) {
+      return TreeUtil.trimParentheses(((FunctionInvocation) expr).getArgument(0));
+    }
+    return expr;
+  }
+
+  /**
+   * Returns true if a local variable is assigned, incremented or decremented
+   * in a statement, or if its address is taken.
+   */
+  private static boolean isModified(Statement stmt, VariableElement var) {
+    boolean[] result = new boolean[1];
+    stmt.accept(new TreeVisitor() {
+      @Override
+      public void endVisit(Assignment node) {
+        check(node.getLeftHandSide());
+      }
+
+      @Override
+      public void endVisit(PostfixExpression node) {
+        check(node.getOperand());
+      }
+
+      @Override
+      public void endVisit(PrefixExpression node) {
+        PrefixExpression.Operator op = node.getOperator();
+        if (op == PrefixExpression.Operator.INCREMENT
+            || op == PrefixExpression.Operator.DECREMENT
+            || op == PrefixExpression.Operator.ADDRESS_OF) {
+          check(node.getOperand());
+        }
+      }
+
+      private void check(Expression expr) {
+        if (TreeUtil.getVariableElement(expr) == var) {
+          result[0] = true;
+        }
+      }
+    });
+    return result[0];
+  }
+
   @Override
   public void endVisit(ArrayAccess node) {
     TypeMirror componentType = node.getTypeMirror();
     TypeElement iosArrayElement = typeUtil.getIosArray(componentType);
 
+    if (componentType.getKind().isPrimitive() && isBoundedAccess(node)) {
+      node.replaceWith(newUncheckedArrayAccess(node, componentType, iosArrayElement));
+      return;
+    }
     node.replaceWith(newArrayAccess(
         node, componentType, iosArrayElement, TranslationUtil.isAssigned(node)));
   }
 
+  /**
+   * Returns true if the access is "a[i]" in the body of a counted loop over
+   * the array a with the index i.
+   */
+  private boolean isBoundedAccess(ArrayAccess node) {
+    Expression index = TreeUtil.trimParentheses(node.getIndex());
+    if (!(index instanceof SimpleName)) {
+      return false;
+    }
+    VariableElement array = boundedIndices.get(TreeUtil.getVariableElement(index));
+    return array != null && TreeUtil.getVariableElement(trimNilCheck(node.getArray())) == array;
+  }
+
+  /**
+   * Returns "*(a->buffer_ + i)", which accesses the array's elements without
+   * the bounds check of the IOS*Array_Get functions. The array is known to
+   * not be null, since the loop condition read its length.
+   */
+  private Expression newUncheckedArrayAccess(
+      ArrayAccess arrayAccessNode, TypeMirror componentType, TypeElement iosArrayElement) {
+    TypeMirror bufferType = new PointerType(componentType);
+    VariableElement bufferField = GeneratedVariableElement.newField(
+        "buffer", bufferType, iosArrayElement)
+        .addModifiers(Modifier.PUBLIC);
+    InfixExpression elementPointer = new InfixExpression(
+        bufferType, InfixExpression.Operator.PLUS,
+        new FieldAccess(bufferField, trimNilCheck(arrayAccessNode.getArray()).copy()),
+        TreeUtil.trimParentheses(arrayAccessNode.getIndex()).copy());
+    return new PrefixExpression(componentType, PrefixExpression.Operator.DEREFERENCE,
+        ParenthesizedExpression.parenthesize(elementPointer));
+  }
+
   private Expression newArrayAccess(
       ArrayAccess arrayAccessNode, TypeMirror componentType, TypeElement iosArrayElement,
       boolean assignable) {
@@ -16,6 +16,10 @@
 
 package com.google.devtools.j2objc.translate;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
 import com.google.devtools.j2objc.ast.ArrayAccess;
 import com.google.devtools.j2objc.ast.ArrayInitializer;
 import com.google.devtools.j2objc.ast.AssertStatement;
@@ -28,9 +32,12 @@ import com.google.devtools.j2objc.ast.ConstructorInvocation;
 import com.google.devtools.j2objc.ast.DoStatement;
 import com.google.devtools.j2objc.ast.EnumConstantDeclaration;
 import com.google.devtools.j2objc.ast.Expression;
+import com.google.devtools.j2objc.ast.ExpressionStatement;
+import com.google.devtools.j2objc.ast.ForStatement;
 import com.google.devtools.j2objc.ast.FunctionInvocation;
 import com.google.devtools.j2objc.ast.IfStatement;
 import com.google.devtools.j2objc.ast.InfixExpression;
+import com.google.devtools.j2objc.ast.MethodDeclaration;
 import com.google.devtools.j2objc.ast.MethodInvocation;
 import com.google.devtools.j2objc.ast.ParenthesizedExpression;
 import com.google.devtools.j2objc.ast.PostfixExpression;
@@ -42,17 +49,22 @@ import com.google.devtools.j2objc.ast.SuperMethodInvocation;
 import com.google.devtools.j2objc.ast.SwitchStatement;
 import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
 import com.google.devtools.j2objc.ast.Type;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
 import com.google.devtools.j2objc.ast.VariableDeclarationFragment;
+import com.google.devtools.j2objc.ast.VariableDeclarationStatement;
 import com.google.devtools.j2objc.ast.WhileStatement;
 import com.google.devtools.j2objc.types.ExecutablePair;
 import com.google.devtools.j2objc.types.FunctionElement;
+import com.google.devtools.j2objc.types.GeneratedVariableElement;
 import com.google.devtools.j2objc.types.PointerType;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.NameTable;
 import com.google.devtools.j2objc.util.TypeUtil;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
@@ -63,6 +75,10 @@ import javax.lang.model.type.TypeMirror;
 /**
  * Adds support for boxing and unboxing numeric primitive values.
  *
+ * Boxed local variables that are updated but only ever read as primitives
+ * are declared as primitives instead, and values that are boxed only to be
+ * unboxed again are used directly.
+ *
  * @author Tom Ball
  */
 public class Autoboxer extends UnitTreeVisitor {
@@ -70,10 +86,181 @@ public class Autoboxer extends UnitTreeVisitor {
   private static final String VALUE_METHOD = "Value";
   private static final String VALUEOF_METHOD = "valueOf";
 
+  // The nodes whose code a local variable's references must share with its declaration.
+  private static final ImmutableList<Class<?>> LOCAL_SCOPE_TYPES =
+      ImmutableList.of(AbstractTypeDeclaration.class, MethodDeclaration.class);
+
   public Autoboxer(CompilationUnit unit) {
     super(unit);
   }
 
+  @Override
+  public boolean visit(CompilationUnit node) {
+    unboxLocalVariables(node);
+    return true;
+  }
+
+  /**
+   * Declares boxed local variables as primitives when they're initialized with
+   * a primitive value, updated, and only used where they would be unboxed, so
+   * each update doesn't allocate a new wrapper.
+   */
+  private void unboxLocalVariables(CompilationUnit node) {
+    Map<VariableElement, VariableDeclarationFragment> candidates = new LinkedHashMap<>();
+    ListMultimap<VariableElement, SimpleName> references = ArrayListMultimap.create();
+    node.accept(new TreeVisitor() {
+      @Override
+      public void endVisit(VariableDeclarationStatement stmt) {
+        List<VariableDeclarationFragment> fragments = stmt.getFragments();
+        if (fragments.size() != 1 || !stmt.getAnnotations().isEmpty()) {
+          return;
+        }
+        VariableDeclarationFragment fragment = fragments.get(0);
+        VariableElement var = fragment.getVariableElement();
+        Expression initializer = fragment.getInitializer();
+        if (typeUtil.isBoxedType(var.asType()) && var.getAnnotationMirrors().isEmpty()
+            && initializer != null && initializer.getTypeMirror().getKind().isPrimitive()) {
+          candidates.put(var, fragment);
+        }
+      }
+
+      @Override
+      public void endVisit(SimpleName name) {
+        VariableElement var = TreeUtil.getVariableElement(name);
+        if (var != null && ElementUtil.isLocalVariable(var)) {
+          references.put(var, name);
+        }
+      }
+    });
+
+    for (Map.Entry<VariableElement, VariableDeclarationFragment> entry : candidates.entrySet()) {
+      VariableElement var = entry.getKey();
+      VariableDeclarationFragment fragment = entry.getValue();
+      List<SimpleName> names = references.get(var);
+      if (!canUnboxLocalVariable(fragment, names)) {
+        continue;
+      }
+      GeneratedVariableElement newVar = GeneratedVariableElement.newLocalVar(
+          ElementUtil.getName(var), typeUtil.unboxedType(var.asType()),
+          var.getEnclosingElement());
+      nameTable.setVariableName(newVar, nameTable.getVariableBaseName(var));
+      fragment.setVariableElement(newVar);
+      for (SimpleName name : names) {
+        name.replaceWith(new SimpleName(newVar));
+      }
+    }
+  }
+
+  private boolean canUnboxLocalVariable(
+      VariableDeclarationFragment fragment, List<SimpleName> names) {
+    TreeNode scope = TreeUtil.getNearestAncestorWithTypeOneOf(LOCAL_SCOPE_TYPES, fragment);
+    boolean updated = false;
+    for (SimpleName name : names) {
+      if (TreeUtil.getNearestAncestorWithTypeOneOf(LOCAL_SCOPE_TYPES, name) != scope) {
+        // Captured by a lambda or inner class.
+        return false;
+      }
+      TreeNode node = name;
+      TreeNode parent = name.getParent();
+      while (parent instanceof ParenthesizedExpression) {
+        node = parent;
+        parent = parent.getParent();
+      }
+      if (isUpdate(node, parent)) {
+        updated = true;
+      } else if (!isUnboxedUse(node, parent)) {
+        return false;
+      }
+    }
+    return updated;
+  }
+
+  /**
+   * Returns true if node is updated by a statement that doesn't use the
+   * updated value, and can't be assigned a null value.
+   */
+  private static boolean isUpdate(TreeNode node, TreeNode parent) {
+    switch (parent.getKind()) {
+      case ASSIGNMENT:
+        Assignment assignment = (Assignment) parent;
+        return node == assignment.getLeftHandSide() && isStatementExpression(parent)
+            && (assignment.getOperator() != Assignment.Operator.ASSIGN
+                || assignment.getRightHandSide().getTypeMirror().getKind().isPrimitive());
+      case PREFIX_EXPRESSION:
+        PrefixExpression.Operator op = ((PrefixExpression) parent).getOperator();
+        return (op == PrefixExpression.Operator.INCREMENT
+                || op == PrefixExpression.Operator.DECREMENT)
+            && isStatementExpression(parent);
+      case POSTFIX_EXPRESSION:
+        return isStatementExpression(parent);
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isStatementExpression(TreeNode node) {
+    TreeNode parent = node.getParent();
+    return parent instanceof ExpressionStatement
+        || (parent instanceof ForStatement && ((ForStatement) parent).getUpdaters().contains(node));
+  }
+
+  /**
+   * Returns true if node's value is only used as a primitive.
+   */
+  private boolean isUnboxedUse(TreeNode node, TreeNode parent) {
+    switch (parent.getKind()) {
+      case ARRAY_ACCESS:
+        return node == ((ArrayAccess) parent).getIndex();
+      case ASSIGNMENT:
+        Assignment assignment = (Assignment) parent;
+        return node == assignment.getRightHandSide()
+            && (assignment.getOperator() != Assignment.Operator.ASSIGN
+                || assignment.getLeftHandSide().getTypeMirror().getKind().isPrimitive());
+      case CAST_EXPRESSION:
+        return ((CastExpression) parent).getTypeMirror().getKind().isPrimitive();
+      case CONDITIONAL_EXPRESSION:
+        return node == ((ConditionalExpression) parent).getExpression();
+      case DO_STATEMENT:
+      case IF_STATEMENT:
+      case SWITCH_STATEMENT:
+      case WHILE_STATEMENT:
+        return true;
+      case INFIX_EXPRESSION:
+        InfixExpression infix = (InfixExpression) parent;
+        InfixExpression.Operator op = infix.getOperator();
+        if (op != InfixExpression.Operator.EQUALS && op != InfixExpression.Operator.NOT_EQUALS) {
+          return true;
+        }
+        // Boxed operands are compared by identity.
+        for (Expression operand : infix.getOperands()) {
+          if (operand != node && operand.getTypeMirror().getKind().isPrimitive()) {
+            return true;
+          }
+        }
+        return false;
+      case METHOD_INVOCATION:
+        MethodInvocation invocation = (MethodInvocation) parent;
+        int index = invocation.getArguments().indexOf(node);
+        ExecutableElement method = invocation.getExecutableElement();
+        List<? extends VariableElement> params = method.getParameters();
+        return index >= 0 && !(method.isVarArgs() && index >= params.size() - 1)
+            && params.get(index).asType().getKind().isPrimitive();
+      case POSTFIX_EXPRESSION:
+        return false;
+      case PREFIX_EXPRESSION:
+        PrefixExpression.Operator prefixOp = ((PrefixExpression) parent).getOperator();
+        return prefixOp != PrefixExpression.Operator.INCREMENT
+            && prefixOp != PrefixExpression.Operator.DECREMENT;
+      case RETURN_STATEMENT:
+        return TreeUtil.getOwningReturnType(parent).getKind().isPrimitive();
+      case VARIABLE_DECLARATION_FRAGMENT:
+        return ((VariableDeclarationFragment) parent).getVariableElement().asType().getKind()
+            .isPrimitive();
+      default:
+        return false;
+    }
+  }
+
   /**
    * Convert a primitive type expression into a wrapped instance.  Each
    * wrapper class has a static valueOf factory method, so "expr" gets
@@ -124,6 +311,17 @@ public class Autoboxer extends UnitTreeVisitor {
     if (primitiveType == null) {
       return;
     }
+    Expression boxedValue = getBoxedValue(expr);
+    if (boxedValue != null && boxedValue.getTypeMirror().getKind() == primitiveType.getKind()) {
+      // The value was just boxed, so use it directly.
+      boxedValue = TreeUtil.remove(boxedValue);
+      if (boxedValue instanceof InfixExpression || boxedValue instanceof ConditionalExpression
+          || boxedValue instanceof Assignment) {
+        boxedValue = ParenthesizedExpression.parenthesize(boxedValue);
+      }
+      expr.replaceWith(boxedValue);
+      return;
+    }
     ExecutableElement valueMethod = ElementUtil.findMethod(
         boxedClass, TypeUtil.getName(primitiveType) + VALUE_METHOD);
     assert valueMethod != null : "could not find value method for " + boxedClass;
@@ -132,6 +330,26 @@ public class Autoboxer extends UnitTreeVisitor {
     invocation.setExpression(expr);
   }
 
+  /**
+   * Returns the primitive argument of a valueOf() invocation, or null if expr
+   * isn't one.
+   */
+  private Expression getBoxedValue(Expression expr) {
+    expr = TreeUtil.trimParentheses(expr);
+    if (!(expr instanceof MethodInvocation)) {
+      return null;
+    }
+    MethodInvocation invocation = (MethodInvocation) expr;
+    ExecutableElement method = invocation.getExecutableElement();
+    List<Expression> args = invocation.getArguments();
+    if (ElementUtil.isStatic(method) && ElementUtil.getName(method).equals(VALUEOF_METHOD)
+        && typeUtil.isBoxedType(ElementUtil.getDeclaringClass(method).asType())
+        && args.size() == 1 && args.get(0).getTypeMirror().getKind().isPrimitive()) {
+      return args.get(0);
+    }
+    return null;
+  }
+
   private TypeElement findBoxedSuperclass(TypeMirror type) {
     while (type != null) {
       if (typeUtil.isBoxedType(type)) {
@@ -73,6 +73,8 @@ public class EnhancedForRewriter extends UnitTreeVisitor {
       handleArrayIteration(node);
     } else if (emitJavaIteratorLoop(loopVariable)) {
       convertToJavaIteratorLoop(node);
+    } else if (emitIndexedListLoop(expressionType)) {
+      convertToIndexedListLoop(node);
     } else if (loopVariable.asType().getKind().isPrimitive()) {
       boxLoopVariable(node, expressionType, loopVariable);
     } else {
@@ -184,6 +186,71 @@ public class EnhancedForRewriter extends UnitTreeVisitor {
     replaceLoop(node, block, whileLoop);
   }
 
+  /**
+   * Returns true if the loop can call get() on a RandomAccess list instead of
+   * enumerating it. Only final list types are converted, so a subclass can't
+   * change how the list is iterated. ArrayList's fast enumeration already
+   * reads its backing array directly, and synchronized and concurrent lists
+   * rely on their own iterators, so they aren't converted.
+   */
+  private boolean emitIndexedListLoop(TypeMirror expressionType) {
+    TypeElement type = TypeUtil.asTypeElement(expressionType);
+    if (!options.indexedListLoops() || type == null || !ElementUtil.isFinal(type)
+        || typeUtil.findSupertype(expressionType, "java.util.RandomAccess") == null
+        || typeUtil.findSupertype(expressionType, "java.util.List") == null
+        || typeUtil.findSupertype(expressionType, "java.util.ArrayList") != null
+        || typeUtil.findSupertype(expressionType, "java.util.Vector") != null) {
+      return false;
+    }
+    for (TypeElement t = type; t != null; t = ElementUtil.getSuperclass(t)) {
+      if (ElementUtil.getQualifiedName(t).startsWith("java.util.concurrent.")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void convertToIndexedListLoop(EnhancedForStatement node) {
+    Expression expression = node.getExpression();
+    VariableElement loopVariable = node.getParameter().getVariableElement();
+    DeclaredType listType = typeUtil.findSupertype(expression.getTypeMirror(), "java.util.List");
+    ExecutablePair sizeMethod = typeUtil.findMethod(listType, "size");
+    ExecutablePair getMethod = typeUtil.findMethod(listType, "get", "int");
+    assert sizeMethod != null && getMethod != null;
+    TypeMirror intType = typeUtil.getInt();
+
+    VariableElement listVariable = GeneratedVariableElement.newLocalVar("a__", listType, null);
+    VariableElement sizeVariable = GeneratedVariableElement.newLocalVar("n__", intType, null);
+    VariableElement indexVariable = GeneratedVariableElement.newLocalVar("i__", intType, null);
+
+    VariableDeclarationStatement listDecl =
+        new VariableDeclarationStatement(listVariable, TreeUtil.remove(expression));
+    VariableDeclarationStatement sizeDecl = new VariableDeclarationStatement(
+        sizeVariable, new MethodInvocation(sizeMethod, new SimpleName(listVariable)));
+    VariableDeclarationStatement indexDecl = new VariableDeclarationStatement(
+        indexVariable, TreeUtil.newLiteral(0, typeUtil));
+
+    WhileStatement loop = new WhileStatement();
+    loop.setExpression(new InfixExpression(
+        typeUtil.getBoolean(), InfixExpression.Operator.LESS, new SimpleName(indexVariable),
+        new SimpleName(sizeVariable)));
+    Block newLoopBody = makeBlock(TreeUtil.remove(node.getBody()));
+    loop.setBody(newLoopBody);
+    MethodInvocation getInvocation =
+        new MethodInvocation(getMethod, new SimpleName(listVariable));
+    getInvocation.addArgument(
+        new PostfixExpression(indexVariable, PostfixExpression.Operator.INCREMENT));
+    newLoopBody.addStatement(0, new VariableDeclarationStatement(loopVariable, getInvocation));
+
+    Block block = new Block();
+    List<Statement> stmts = block.getStatements();
+    stmts.add(listDecl);
+    stmts.add(sizeDecl);
+    stmts.add(indexDecl);
+    stmts.add(loop);
+    replaceLoop(node, block, loop);
+  }
+
   private void replaceLoop(EnhancedForStatement oldLoop, Statement replacement, Statement newLoop) {
     if (oldLoop.getParent() instanceof LabeledStatement) {
       LabeledStatement labeledStmt = (LabeledStatement) oldLoop.getParent();
@@ -49,6 +49,7 @@ import com.google.devtools.j2objc.types.FunctionElement;
 import com.google.devtools.j2objc.types.GeneratedExecutableElement;
 import com.google.devtools.j2objc.types.GeneratedVariableElement;
 import com.google.devtools.j2objc.util.CaptureInfo;
+import com.google.devtools.j2objc.util.CodeReferenceMap;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.ErrorUtil;
 import com.google.devtools.j2objc.util.NameTable;
@@ -67,8 +68,8 @@ import javax.lang.model.type.TypeMirror;
 
 /**
  * Converts methods that don't need dynamic dispatch to C functions. This optimization
- * initially just targets private methods, but will be expanded to include final methods
- * that don't override superclass methods.
+ * targets private and final methods, and the methods that a whole-program report from
+ * --final-methods-report lists as having no overrides.
  *
  * @author Tom Ball
  */
@@ -147,13 +148,22 @@ public class Functionizer extends UnitTreeVisitor {
       return false;
     }
 
-    if (!ElementUtil.isPrivate(m) && !ElementUtil.isFinal(m)) {
+    if (!ElementUtil.isPrivate(m) && !ElementUtil.isFinal(m) && !isEffectivelyFinal(m)) {
       return false;
     }
 
     return !hasSuperMethodInvocation(node);
   }
 
+  /**
+   * Returns true if the method has no overrides in the whole program, as
+   * listed by --final-methods-report.
+   */
+  private boolean isEffectivelyFinal(ExecutableElement m) {
+    CodeReferenceMap finalMethods = options.getEffectivelyFinalMethods();
+    return finalMethods != null && finalMethods.containsMethod(m, typeUtil);
+  }
+
   private static boolean hasSuperMethodInvocation(MethodDeclaration node) {
     final boolean[] result = new boolean[1];
     result[0] = false;
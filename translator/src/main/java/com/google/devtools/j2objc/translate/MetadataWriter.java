@@ -14,7 +14,6 @@
 
 package com.google.devtools.j2objc.translate;
 
-import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
 import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
@@ -44,10 +43,10 @@ import com.google.devtools.j2objc.types.GeneratedTypeElement;
 import com.google.devtools.j2objc.types.NativeType;
 import com.google.devtools.j2objc.util.ElementUtil;
 import com.google.devtools.j2objc.util.ErrorUtil;
+import com.google.devtools.j2objc.util.MetadataPointerTables.PointerTable;
 import com.google.devtools.j2objc.util.TypeUtil;
 import com.google.devtools.j2objc.util.UnicodeUtils;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
@@ -58,7 +57,9 @@ import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.TypeMirror;
 
 /**
- * Adds the __metadata method to classes to support reflection.
+ * Adds the __metadata method to classes to support reflection. With the
+ * --shared-metadata-tables flag, the types of an output file add their
+ * pointers to a table shared by the file, instead of a table of their own.
  */
 public class MetadataWriter extends UnitTreeVisitor {
 
@@ -107,11 +108,42 @@ public class MetadataWriter extends UnitTreeVisitor {
     Block body = new Block();
     metadataDecl.setBody(body);
 
-    new MetadataGenerator(node, body.getStatements()).generateClassMetadata();
+    new MetadataGenerator(node, body.getStatements(), getSharedTable(node))
+        .generateClassMetadata();
 
     node.addBodyDeclaration(metadataDecl);
   }
 
+  /**
+   * Returns the shared table that a type's metadata adds its pointers to, or
+   * null if the type has a table of its own.
+   */
+  private PointerTable getSharedTable(AbstractTypeDeclaration node) {
+    TypeElement type = node.getTypeElement();
+    // The declarations that a shared table refers to aren't printed for types
+    // whose implementation isn't generated.
+    if (!options.sharedMetadataTables() || !translationUtil.generateImplementation(type)) {
+      return null;
+    }
+    return unit.getMetadataPointerTables().getTable(
+        nameTable.getFullName(type) + "__ptrTable", maxPointerCount(node));
+  }
+
+  /**
+   * Returns the most pointers that a type's metadata can add to its table:
+   * five for the class, six for each method and four for each field.
+   */
+  private static int maxPointerCount(AbstractTypeDeclaration node) {
+    int count = 5 + 6 * Iterables.size(TreeUtil.getMethodDeclarations(node));
+    for (FieldDeclaration decl : TreeUtil.getFieldDeclarations(node)) {
+      count += 4 * decl.getFragments().size();
+    }
+    if (node instanceof EnumDeclaration) {
+      count += 4 * ((EnumDeclaration) node).getEnumConstants().size();
+    }
+    return count;
+  }
+
   /**
    * Generates the metadata contents for a single type.
    */
@@ -121,15 +153,19 @@ public class MetadataWriter extends UnitTreeVisitor {
     private final TypeElement type;
     private final String className;
     private final List<Statement> stmts;
-    // Use a LinkedHashMap so that we can de-dupe values that are added to the pointer table.
-    private final LinkedHashMap<String, Integer> pointers = new LinkedHashMap<>();
+    private final PointerTable pointerTable;
+    private final boolean isSharedTable;
+    private boolean hasPointers = false;
     private int annotationFuncCount = 0;
 
-    private MetadataGenerator(AbstractTypeDeclaration typeNode, List<Statement> stmts) {
+    private MetadataGenerator(
+        AbstractTypeDeclaration typeNode, List<Statement> stmts, PointerTable sharedTable) {
       this.typeNode = typeNode;
       type = typeNode.getTypeElement();
       className = nameTable.getFullName(type);
       this.stmts = stmts;
+      isSharedTable = sharedTable != null;
+      pointerTable = isSharedTable ? sharedTable : new PointerTable("ptrTable");
     }
 
     private void generateClassMetadata() {
@@ -162,10 +198,10 @@ public class MetadataWriter extends UnitTreeVisitor {
     }
 
     private String getPtrTableEntry() {
-      if (pointers.isEmpty()) {
+      if (!hasPointers) {
         return "NULL";
       }
-      if (pointers.size() > Short.MAX_VALUE) {
+      if (pointerTable.size() > Short.MAX_VALUE) {
         // Note that values greater that 2^15 and less than 2^16 will not result in a compile
         // error even though the index type is declared as signed.
         // This limit is more restrictive than existing limits on number of methods and fields
@@ -175,9 +211,10 @@ public class MetadataWriter extends UnitTreeVisitor {
         // field that can index into the table. See JVMS-4.11.
         ErrorUtil.error(typeNode, "Too many metadata entries causing overflow.");
       }
-      stmts.add(new NativeStatement(
-          "static const void *ptrTable[] = { " + Joiner.on(", ").join(pointers.keySet()) + " };"));
-      return "ptrTable";
+      if (!isSharedTable) {
+        stmts.add(new NativeStatement(pointerTable.getDeclaration()));
+      }
+      return pointerTable.name;
     }
 
     private int generateMethodsMetadata() {
@@ -333,12 +370,8 @@ public class MetadataWriter extends UnitTreeVisitor {
       if (ptr == null) {
         return "-1";
       }
-      Integer idx = pointers.get(ptr);
-      if (idx == null) {
-        idx = pointers.size();
-        pointers.put(ptr, idx);
-      }
-      return idx.toString();
+      hasPointers = true;
+      return Integer.toString(pointerTable.getIndex(ptr));
     }
 
     /**
@@ -53,6 +53,7 @@ import com.google.devtools.j2objc.ast.SwitchStatement;
 import com.google.devtools.j2objc.ast.ThrowStatement;
 import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
+import com.google.devtools.j2objc.ast.TreeVisitor;
 import com.google.devtools.j2objc.ast.TryStatement;
 import com.google.devtools.j2objc.ast.TypeDeclaration;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
@@ -69,6 +70,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
@@ -97,10 +100,24 @@ public class NilCheckResolver extends UnitTreeVisitor {
 
   private static final Set<VariableElement> EMPTY_VARS = Collections.emptySet();
 
+  // With --assume-nonnull, the final fields declared in this unit that are
+  // only assigned values that can't be null.
+  private Set<VariableElement> nonnullFinalFields = EMPTY_VARS;
+  // Whether the parameters of a type's methods are Nonnull by default.
+  private final Map<TypeElement, Boolean> parametersNonnullByDefault = new HashMap<>();
+
   public NilCheckResolver(CompilationUnit unit) {
     super(unit);
   }
 
+  @Override
+  public boolean visit(CompilationUnit node) {
+    if (options.assumeNonnull()) {
+      nonnullFinalFields = findNonnullFinalFields(node);
+    }
+    return true;
+  }
+
   /**
    * A stack element that tracks which variables are safe and don't need a
    * nil_chk or not safe.
@@ -384,13 +401,14 @@ public class NilCheckResolver extends UnitTreeVisitor {
   private boolean needsNilCheck(Expression e) {
     VariableElement sym = TreeUtil.getVariableElement(e);
     if (sym != null) {
-      return !ElementUtil.isNonnull(sym) && (ElementUtil.isVolatile(sym) || !isSafeVar(sym));
+      return !ElementUtil.isNonnull(sym) && !isAssumedNonnull(sym)
+          && (ElementUtil.isVolatile(sym) || !isSafeVar(sym));
     }
     ExecutableElement method = TreeUtil.getExecutableElement(e);
     if (method != null) {
       // Check for some common cases where the result is known not to be null.
       return !ElementUtil.isConstructor(method) && !ElementUtil.getName(method).equals("getClass")
-          && !isBoxingMethod(method);
+          && !isBoxingMethod(method) && !isAssumedNonnull(method);
     }
     switch (e.getKind()) {
       case CAST_EXPRESSION:
@@ -406,6 +424,96 @@ public class NilCheckResolver extends UnitTreeVisitor {
     }
   }
 
+  /**
+   * Returns true if --assume-nonnull is set, and a variable or method result
+   * is declared Nonnull, or is a final field that is only assigned values that
+   * can't be null.
+   */
+  private boolean isAssumedNonnull(Element element) {
+    if (!options.assumeNonnull()) {
+      return false;
+    }
+    if (ElementUtil.hasNonnullAnnotation(element) || nonnullFinalFields.contains(element)) {
+      return true;
+    }
+    if (ElementUtil.isParameter(element) && !element.asType().getKind().isPrimitive()) {
+      // Lambda parameters are enclosed by a method, but aren't its parameters.
+      Element method = element.getEnclosingElement();
+      if (method instanceof ExecutableElement
+          && ((ExecutableElement) method).getParameters().contains(element)) {
+        TypeElement type = ElementUtil.getDeclaringClass(method);
+        Boolean result = parametersNonnullByDefault.get(type);
+        if (result == null) {
+          result = elementUtil.areParametersNonnullByDefault(type, options);
+          parametersNonnullByDefault.put(type, result);
+        }
+        return result;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the final fields declared in a unit that are only assigned new
+   * objects, literals, or values declared Nonnull. All of a final field's
+   * assignments are in its declaring type.
+   */
+  private Set<VariableElement> findNonnullFinalFields(CompilationUnit unit) {
+    Map<VariableElement, Boolean> fields = new HashMap<>();
+    unit.accept(new TreeVisitor() {
+      @Override
+      public void endVisit(VariableDeclarationFragment node) {
+        if (node.getInitializer() != null) {
+          addValue(node.getVariableElement(), node.getInitializer());
+        }
+      }
+
+      @Override
+      public void endVisit(Assignment node) {
+        VariableElement var = TreeUtil.getVariableElement(node.getLeftHandSide());
+        if (var != null) {
+          addValue(var, node.getRightHandSide());
+        }
+      }
+
+      private void addValue(VariableElement var, Expression value) {
+        if (var.getKind() == ElementKind.FIELD && ElementUtil.isFinal(var)) {
+          Boolean nonnull = fields.get(var);
+          fields.put(var, (nonnull == null || nonnull) && isNonnullValue(value));
+        }
+      }
+    });
+    Set<VariableElement> result = new HashSet<>();
+    for (Map.Entry<VariableElement, Boolean> entry : fields.entrySet()) {
+      if (entry.getValue()) {
+        result.add(entry.getKey());
+      }
+    }
+    return result;
+  }
+
+  private boolean isNonnullValue(Expression value) {
+    value = TreeUtil.trimParentheses(value);
+    switch (value.getKind()) {
+      case ARRAY_CREATION:
+      case CLASS_INSTANCE_CREATION:
+      case LAMBDA_EXPRESSION:
+      case STRING_LITERAL:
+      case TYPE_LITERAL:
+        return true;
+      case CAST_EXPRESSION:
+        return isNonnullValue(((CastExpression) value).getExpression());
+      default:
+        break;
+    }
+    VariableElement var = TreeUtil.getVariableElement(value);
+    if (var != null) {
+      return ElementUtil.isNonnull(var) || ElementUtil.hasNonnullAnnotation(var);
+    }
+    ExecutableElement method = TreeUtil.getExecutableElement(value);
+    return method != null && ElementUtil.hasNonnullAnnotation(method);
+  }
+
   private void addNilCheck(Expression node) {
     if (!needsNilCheck(node)) {
       return;
@@ -387,6 +387,11 @@ public class OperatorRewriter extends UnitTreeVisitor {
   }
 
   private void rewriteStringConcatenation(InfixExpression node) {
+    String constantValue = getLiteralStringValue(node);
+    if (constantValue != null) {
+      node.replaceWith(new StringLiteral(constantValue, typeUtil));
+      return;
+    }
     List<Expression> childOperands = node.getOperands();
     List<Expression> operands = Lists.newArrayListWithCapacity(childOperands.size());
     TreeUtil.moveList(childOperands, operands);
@@ -410,7 +415,8 @@ public class OperatorRewriter extends UnitTreeVisitor {
 
   private List<Expression> getStringAppendOperands(Assignment node) {
     Expression rhs = node.getRightHandSide();
-    if (rhs instanceof InfixExpression && typeUtil.isString(rhs.getTypeMirror())) {
+    if (rhs instanceof InfixExpression && typeUtil.isString(rhs.getTypeMirror())
+        && getLiteralStringValue(rhs) == null) {
       InfixExpression infixExpr = (InfixExpression) rhs;
       if (infixExpr.getOperator() == InfixExpression.Operator.PLUS) {
         List<Expression> operands = infixExpr.getOperands();
@@ -419,7 +425,7 @@ public class OperatorRewriter extends UnitTreeVisitor {
         return coalesceStringLiterals(result);
       }
     }
-    return Collections.singletonList(TreeUtil.remove(rhs));
+    return coalesceStringLiterals(Collections.singletonList(TreeUtil.remove(rhs)));
   }
 
   private void rewriteStringAppend(Assignment node) {
@@ -486,7 +492,14 @@ public class OperatorRewriter extends UnitTreeVisitor {
       case NUMBER_LITERAL:
         return ((NumberLiteral) expr).getValue().toString();
       default:
-        return null;
+        // Other compile-time constants, such as static final constants and
+        // constant subexpressions, are folded too.
+        Object constantValue = expr.getConstantValue();
+        if (constantValue == null) {
+          return null;
+        }
+        String stringValue = String.valueOf(constantValue);
+        return UnicodeUtils.hasValidCppCharacters(stringValue) ? stringValue : null;
     }
   }
 
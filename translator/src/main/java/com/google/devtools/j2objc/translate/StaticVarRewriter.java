@@ -14,21 +14,35 @@
 
 package com.google.devtools.j2objc.translate;
 
+import com.google.devtools.j2objc.ast.Block;
 import com.google.devtools.j2objc.ast.CommaExpression;
 import com.google.devtools.j2objc.ast.CompilationUnit;
+import com.google.devtools.j2objc.ast.ConditionalExpression;
 import com.google.devtools.j2objc.ast.Expression;
+import com.google.devtools.j2objc.ast.ExpressionStatement;
 import com.google.devtools.j2objc.ast.FieldAccess;
+import com.google.devtools.j2objc.ast.FunctionDeclaration;
+import com.google.devtools.j2objc.ast.InfixExpression;
+import com.google.devtools.j2objc.ast.MethodDeclaration;
 import com.google.devtools.j2objc.ast.NativeExpression;
 import com.google.devtools.j2objc.ast.PrefixExpression;
 import com.google.devtools.j2objc.ast.QualifiedName;
 import com.google.devtools.j2objc.ast.SimpleName;
+import com.google.devtools.j2objc.ast.SingleVariableDeclaration;
+import com.google.devtools.j2objc.ast.Statement;
 import com.google.devtools.j2objc.ast.SwitchCase;
 import com.google.devtools.j2objc.ast.TreeNode;
 import com.google.devtools.j2objc.ast.TreeUtil;
 import com.google.devtools.j2objc.ast.UnitTreeVisitor;
+import com.google.devtools.j2objc.ast.VariableDeclarationStatement;
 import com.google.devtools.j2objc.types.PointerType;
 import com.google.devtools.j2objc.util.ElementUtil;
+import com.google.devtools.j2objc.util.NameTable;
 import com.google.devtools.j2objc.util.TranslationUtil;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
@@ -36,10 +50,20 @@ import javax.lang.model.type.TypeMirror;
 /**
  * Converts static variable access to static method calls where necessary.
  *
+ * A static load isn't needed where the declaring class is known to be
+ * initialized: in its own code, in instance methods of the class or its
+ * subclasses, and after a statement in an enclosing block that loaded a
+ * static variable of the class unconditionally.
+ *
  * @author Keith Stanger
  */
 public class StaticVarRewriter extends UnitTreeVisitor {
 
+  // Classes that are initialized by preceding statements of the enclosing blocks.
+  private Set<TypeElement> initializedTypes = new HashSet<>();
+  // Classes loaded unconditionally by the current statement.
+  private Set<TypeElement> loadedTypes = new HashSet<>();
+
   public StaticVarRewriter(CompilationUnit unit) {
     super(unit);
   }
@@ -48,8 +72,77 @@ public class StaticVarRewriter extends UnitTreeVisitor {
     if (!ElementUtil.isStatic(var) || ElementUtil.isConstant(var)) {
       return false;
     }
+    TypeElement declaringClass = ElementUtil.getDeclaringClass(var);
+    if (initializedTypes.contains(declaringClass)) {
+      return false;
+    }
     TypeElement enclosingType = TreeUtil.getEnclosingTypeElement(currentNode);
-    return enclosingType == null || !enclosingType.equals(ElementUtil.getDeclaringClass(var));
+    if (enclosingType == null) {
+      return true;
+    }
+    if (enclosingType.equals(declaringClass)) {
+      return false;
+    }
+    // An instance exists, so its class and superclasses are initialized.
+    return !(isInInstanceCode(currentNode) && isSuperclass(declaringClass, enclosingType));
+  }
+
+  private static boolean isInInstanceCode(TreeNode node) {
+    while (node != null) {
+      if (node instanceof MethodDeclaration) {
+        return !ElementUtil.isStatic(((MethodDeclaration) node).getExecutableElement());
+      }
+      if (node instanceof FunctionDeclaration) {
+        // Functionized instance methods and constructors take self as their first parameter.
+        FunctionDeclaration function = (FunctionDeclaration) node;
+        List<SingleVariableDeclaration> params = function.getParameters();
+        return !Modifier.isStatic(function.getModifiers()) && !params.isEmpty()
+            && params.get(0).getVariableElement().getSimpleName()
+                .contentEquals(NameTable.SELF_NAME);
+      }
+      node = node.getParent();
+    }
+    return false;
+  }
+
+  private static boolean isSuperclass(TypeElement superclass, TypeElement type) {
+    for (TypeElement t = ElementUtil.getSuperclass(type); t != null;
+         t = ElementUtil.getSuperclass(t)) {
+      if (t.equals(superclass)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the node is always evaluated when the statement containing
+   * it completes normally, and that statement is followed by the rest of its
+   * block.
+   */
+  private static boolean isUnconditionallyEvaluated(TreeNode node) {
+    TreeNode child = node;
+    TreeNode parent = node.getParent();
+    while (parent != null && !(parent instanceof Statement)) {
+      if (parent instanceof ConditionalExpression
+          && child != ((ConditionalExpression) parent).getExpression()) {
+        return false;
+      }
+      if (parent instanceof InfixExpression) {
+        InfixExpression infix = (InfixExpression) parent;
+        InfixExpression.Operator op = infix.getOperator();
+        if ((op == InfixExpression.Operator.CONDITIONAL_AND
+             || op == InfixExpression.Operator.CONDITIONAL_OR)
+            && child != infix.getOperands().get(0)) {
+          return false;
+        }
+      }
+      child = parent;
+      parent = parent.getParent();
+    }
+    return (parent instanceof ExpressionStatement
+            || parent instanceof VariableDeclarationStatement)
+        && parent.getParent() instanceof Block;
   }
 
   private void rewriteStaticAccess(Expression node) {
@@ -59,6 +152,9 @@ public class StaticVarRewriter extends UnitTreeVisitor {
     }
 
     TypeElement declaringClass = ElementUtil.getDeclaringClass(var);
+    if (isUnconditionallyEvaluated(node)) {
+      loadedTypes.add(declaringClass);
+    }
     boolean assignable = TranslationUtil.isAssigned(node);
     StringBuilder code = new StringBuilder(
         ElementUtil.isEnumConstant(var) ? "JreLoadEnum" : "JreLoadStatic");
@@ -81,6 +177,22 @@ public class StaticVarRewriter extends UnitTreeVisitor {
     node.replaceWith(newNode);
   }
 
+  @Override
+  public boolean visit(Block node) {
+    // The order that C evaluates subexpressions isn't specified, so a load
+    // only initializes its class for the statements that follow it.
+    Set<TypeElement> outerInitializedTypes = initializedTypes;
+    initializedTypes = new HashSet<>(outerInitializedTypes);
+    for (Statement stmt : node.getStatements()) {
+      Set<TypeElement> stmtLoadedTypes = new HashSet<>();
+      loadedTypes = stmtLoadedTypes;
+      stmt.accept(this);
+      initializedTypes.addAll(stmtLoadedTypes);
+    }
+    initializedTypes = outerInitializedTypes;
+    return false;
+  }
+
   @Override
   public boolean visit(FieldAccess node) {
     VariableElement var = node.getVariableElement();
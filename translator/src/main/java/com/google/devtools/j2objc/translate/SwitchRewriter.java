@@ -37,7 +37,11 @@ import com.google.devtools.j2objc.types.ExecutablePair;
 import com.google.devtools.j2objc.types.FunctionElement;
 import com.google.devtools.j2objc.util.NameTable;
 import com.google.devtools.j2objc.util.TypeUtil;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.ArrayType;
@@ -51,6 +55,10 @@ import javax.lang.model.type.TypeMirror;
  */
 public class SwitchRewriter extends UnitTreeVisitor {
 
+  // String switches with fewer cases are matched by comparing the switch
+  // value with each case, which is as fast as hashing the value.
+  private static final int MIN_HASHED_STRING_CASES = 8;
+
   public SwitchRewriter(CompilationUnit unit) {
     super(unit);
   }
@@ -133,26 +141,87 @@ public class SwitchRewriter extends UnitTreeVisitor {
     if (!typeUtil.isString(type)) {
       return;
     }
+    List<SwitchCase> cases = new ArrayList<>();
+    for (Statement stmt : node.getStatements()) {
+      if (stmt instanceof SwitchCase && !((SwitchCase) stmt).isDefault()) {
+        cases.add((SwitchCase) stmt);
+      }
+    }
+    List<String> values = getStringValues(cases);
+    if (values == null || cases.size() < MIN_HASHED_STRING_CASES) {
+      node.setExpression(newIndexOfStr(TreeUtil.remove(expr), cases, null));
+      return;
+    }
+
+    // Sort the cases by the hash codes of their values, so the runtime can
+    // binary search for the switch value's hash code, and then only compare
+    // the strings with the same hash code.
+    Map<SwitchCase, Integer> hashCodes = new HashMap<>();
+    for (int i = 0; i < cases.size(); i++) {
+      hashCodes.put(cases.get(i), values.get(i).hashCode());
+    }
+    List<SwitchCase> sortedCases = new ArrayList<>(cases);
+    Collections.sort(sortedCases, (a, b) -> Integer.compare(hashCodes.get(a), hashCodes.get(b)));
+    ArrayInitializer hashInit = new ArrayInitializer(typeUtil.getArrayType(typeUtil.getInt()));
+    for (SwitchCase caseStmt : sortedCases) {
+      hashInit.addExpression(NumberLiteral.newIntLiteral(hashCodes.get(caseStmt), typeUtil));
+    }
+    node.setExpression(newIndexOfStr(TreeUtil.remove(expr), sortedCases, hashInit));
+  }
+
+  /**
+   * Returns the constant values of the string cases, or null if any value
+   * isn't known.
+   */
+  private static List<String> getStringValues(List<SwitchCase> cases) {
+    List<String> values = new ArrayList<>();
+    for (SwitchCase caseStmt : cases) {
+      Expression expr = caseStmt.getExpression();
+      Object value = expr.getConstantValue();
+      if (value == null) {
+        VariableElement var = TreeUtil.getVariableElement(expr);
+        value = var != null ? var.getConstantValue() : null;
+      }
+      if (!(value instanceof String)) {
+        return null;
+      }
+      values.add((String) value);
+    }
+    return values;
+  }
+
+  /**
+   * Returns a call of the runtime function that returns the index of the
+   * matching case, numbering the cases in the order they're listed. With the
+   * hash codes of the cases, JreIndexOfStrHashed is called instead of
+   * JreIndexOfStr.
+   */
+  private FunctionInvocation newIndexOfStr(
+      Expression expr, List<SwitchCase> cases, ArrayInitializer hashInit) {
+    TypeMirror type = expr.getTypeMirror();
     ArrayType arrayType = typeUtil.getArrayType(type);
     ArrayInitializer arrayInit = new ArrayInitializer(arrayType);
     int idx = 0;
-    for (Statement stmt : node.getStatements()) {
-      if (stmt instanceof SwitchCase) {
-        SwitchCase caseStmt = (SwitchCase) stmt;
-        if (!caseStmt.isDefault()) {
-          arrayInit.addExpression(TreeUtil.remove(caseStmt.getExpression()));
-          caseStmt.setExpression(NumberLiteral.newIntLiteral(idx++, typeUtil));
-        }
-      }
+    for (SwitchCase caseStmt : cases) {
+      arrayInit.addExpression(TreeUtil.remove(caseStmt.getExpression()));
+      caseStmt.setExpression(NumberLiteral.newIntLiteral(idx++, typeUtil));
     }
     TypeMirror intType = typeUtil.getInt();
-    FunctionElement indexOfFunc = new FunctionElement("JreIndexOfStr", intType, null)
-        .addParameters(type, arrayType, intType);
+    FunctionElement indexOfFunc;
+    if (hashInit == null) {
+      indexOfFunc = new FunctionElement("JreIndexOfStr", intType, null)
+          .addParameters(type, arrayType, intType);
+    } else {
+      indexOfFunc = new FunctionElement("JreIndexOfStrHashed", intType, null)
+          .addParameters(type, arrayType, hashInit.getTypeMirror(), intType);
+    }
     FunctionInvocation invocation = new FunctionInvocation(indexOfFunc, intType);
-    invocation.addArgument(TreeUtil.remove(expr))
-        .addArgument(arrayInit)
-        .addArgument(NumberLiteral.newIntLiteral(idx, typeUtil));
-    node.setExpression(invocation);
+    invocation.addArgument(expr).addArgument(arrayInit);
+    if (hashInit != null) {
+      invocation.addArgument(hashInit);
+    }
+    invocation.addArgument(NumberLiteral.newIntLiteral(idx, typeUtil));
+    return invocation;
   }
 
   private void fixEnumValue(SwitchStatement node) {
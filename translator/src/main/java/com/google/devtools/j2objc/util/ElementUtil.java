@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.lang.model.AnnotatedConstruct;
@@ -80,7 +81,7 @@ public final class ElementUtil {
   private final Elements javacElements;
   private final Map<Element, TypeMirror> elementTypeMap = new HashMap<>();
 
-  private static final Map<Integer, Set<Modifier>> modifierSets = new HashMap<>();
+  private static final Map<Integer, Set<Modifier>> modifierSets = new ConcurrentHashMap<>();
 
   public ElementUtil(Elements javacElements) {
     this.javacElements = javacElements;
@@ -32,7 +32,8 @@ import javax.tools.DiagnosticListener;
 import javax.tools.JavaFileObject;
 
 /**
- * Provides convenient static error and warning methods.
+ * Provides convenient static error and warning methods. Errors may be reported
+ * from output generation worker threads, so all mutators are synchronized.
  *
  * @author Tom Ball, Keith Stanger
  */
@@ -41,6 +42,8 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
   private static int errorCount = 0;
   private static int warningCount = 0;
   private static int functionizedMethodCount = 0;
+  private static int outputFileCount = 0;
+  private static int unchangedOutputFileCount = 0;
   private static PrintStream errorStream = System.err;
   private static List<String> errorMessages = Lists.newArrayList();
   private static List<String> warningMessages = Lists.newArrayList();
@@ -53,18 +56,20 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
   private static final boolean CLANG_STYLE_ERROR_MSG = (null != System.getenv("DEVELOPER_DIR"));
   private static Pattern pathAndLinePattern = null;
 
-  public static void reset() {
+  public static synchronized void reset() {
     errorCount = 0;
     warningCount = 0;
+    outputFileCount = 0;
+    unchangedOutputFileCount = 0;
     errorMessages = Lists.newArrayList();
     warningMessages = Lists.newArrayList();
   }
 
-  public static int errorCount() {
+  public static synchronized int errorCount() {
     return errorCount;
   }
 
-  public static int warningCount() {
+  public static synchronized int warningCount() {
     return warningCount;
   }
 
@@ -87,7 +92,8 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
     });
   }
 
-  public static String getFullMessage(String tag, String message, boolean clangStyle) {
+  public static synchronized String getFullMessage(
+      String tag, String message, boolean clangStyle) {
     String fullMessage = null;
     if (clangStyle) {
       // Try to find the file path and line number, and then insert the tag after that,
@@ -108,7 +114,7 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
     return fullMessage;
   }
 
-  public static void parserDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic) {
+  public static synchronized void parserDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic) {
     Kind kind = diagnostic.getKind();
     if (kind == Kind.ERROR) {
       errorMessages.add(diagnostic.getMessage(null));
@@ -130,13 +136,13 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
   }
 
   // TODO(tball): Consider more ways to associate errors with GenerationUnits to aid debugging.
-  public static void error(String message) {
+  public static synchronized void error(String message) {
     errorMessages.add(message);
     errorStream.println(getFullMessage("error: ", message, CLANG_STYLE_ERROR_MSG));
     errorCount++;
   }
 
-  public static void warning(String message) {
+  public static synchronized void warning(String message) {
     warningMessages.add(message);
     errorStream.println(getFullMessage("warning: ", message, CLANG_STYLE_ERROR_MSG));
     warningCount++;
@@ -173,14 +179,29 @@ public class ErrorUtil implements DiagnosticListener<JavaFileObject> {
     return String.format("%s:%s: %s", unit.getSourceFilePath(), node.getLineNumber(), message);
   }
 
-  public static void functionizedMethod() {
+  public static synchronized void functionizedMethod() {
     ++functionizedMethodCount;
   }
 
-  public static int functionizedMethodCount() {
+  public static synchronized int functionizedMethodCount() {
     return functionizedMethodCount;
   }
 
+  public static synchronized void outputFile(boolean unchanged) {
+    ++outputFileCount;
+    if (unchanged) {
+      ++unchangedOutputFileCount;
+    }
+  }
+
+  public static synchronized int outputFileCount() {
+    return outputFileCount;
+  }
+
+  public static synchronized int unchangedOutputFileCount() {
+    return unchangedOutputFileCount;
+  }
+
   @Override
   public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
     JavaFileObject sourceFile = diagnostic.getSource();
@@ -104,7 +104,7 @@ public class HeaderMap {
 
   private List<String> inputMappingFiles = null;
   private File outputMappingFile = null;
-  private final Map<String, String> map = Maps.newHashMap();
+  private final Map<String, String> map = Maps.newConcurrentMap();
 
   public void setOutputStyle(OutputStyleOption outputStyle) {
     this.outputStyle = outputStyle;
@@ -141,6 +141,10 @@ public class HeaderMap {
     return outputStyle == OutputStyleOption.SOURCE;
   }
 
+  public boolean writesOutputMapping() {
+    return outputMappingFile != null;
+  }
+
   public boolean combineSourceJars() {
     return outputStyle == OutputStyleOption.SOURCE && combineJars;
   }
@@ -66,6 +66,7 @@ public class Mappings {
           .build();
 
   private static final String JRE_MAPPINGS_FILE = "JRE.mappings";
+  private static Properties jreMappings = null;
 
   private final Map<String, String> classMappings = new HashMap<>();
   private final Map<String, String> methodMappings = new HashMap<>();
@@ -95,8 +96,17 @@ public class Mappings {
   }
 
   public void addJreMappings() throws IOException {
-    InputStream stream = J2ObjC.class.getResourceAsStream(JRE_MAPPINGS_FILE);
-    addMappingsProperties(FileUtil.loadProperties(stream));
+    addMappingsProperties(getJreMappings());
+  }
+
+  // The JRE mappings are a translator resource, so they are only loaded once
+  // when translating multiple times in the same process.
+  private static synchronized Properties getJreMappings() throws IOException {
+    if (jreMappings == null) {
+      InputStream stream = J2ObjC.class.getResourceAsStream(JRE_MAPPINGS_FILE);
+      jreMappings = FileUtil.loadProperties(stream);
+    }
+    return jreMappings;
   }
 
   private void addMappingsProperties(Properties mappings) {
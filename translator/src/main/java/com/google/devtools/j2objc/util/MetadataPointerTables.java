@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Iterables;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The metadata pointer tables shared by the types of an output file. Metadata
+ * refers to a pointer by a short index, so a new table is started when a
+ * type's pointers might not fit in the current one.
+ */
+public class MetadataPointerTables {
+
+  private final List<PointerTable> tables = new ArrayList<>();
+
+  /**
+   * Returns the table that a type adding at most maxNewPointers pointers
+   * should use, starting a table with the specified name if needed.
+   */
+  public PointerTable getTable(String name, int maxNewPointers) {
+    PointerTable table = Iterables.getLast(tables, null);
+    if (table == null || table.size() + maxNewPointers > Short.MAX_VALUE) {
+      table = new PointerTable(name);
+      tables.add(table);
+    }
+    return table;
+  }
+
+  /**
+   * Returns the native declarations of the tables that have pointers.
+   */
+  public List<String> getDeclarations() {
+    List<String> declarations = new ArrayList<>();
+    for (PointerTable table : tables) {
+      if (table.size() > 0) {
+        declarations.add(table.getDeclaration());
+      }
+    }
+    return declarations;
+  }
+
+  /**
+   * The pointers that metadata refers to by index.
+   */
+  public static class PointerTable {
+
+    private final String name;
+    // Use a LinkedHashMap so that we can de-dupe values that are added to the pointer table.
+    private final LinkedHashMap<String, Integer> pointers = new LinkedHashMap<>();
+
+    public PointerTable(String name) {
+      this.name = name;
+    }
+
+    public int size() {
+      return pointers.size();
+    }
+
+    public int getIndex(String ptr) {
+      Integer idx = pointers.get(ptr);
+      if (idx == null) {
+        idx = pointers.size();
+        pointers.put(ptr, idx);
+      }
+      return idx;
+    }
+
+    public String getDeclaration() {
+      return "static const void *" + name + "[] = { " + Joiner.on(", ").join(pointers.keySet())
+          + " };";
+    }
+  }
+}
@@ -17,8 +17,8 @@ package com.google.devtools.j2objc.util;
 import com.google.devtools.j2objc.file.InputFile;
 import com.google.j2objc.annotations.ReflectionSupport;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.objectweb.asm.AnnotationVisitor;
@@ -31,7 +31,7 @@ import org.objectweb.asm.Opcodes;
  */
 public class PackageInfoLookup {
 
-  private final Map<String, PackageData> map = new HashMap<>();
+  private final Map<String, PackageData> map = new ConcurrentHashMap<>();
   private final FileUtil fileUtil;
 
   private static final String REFLECTION_SUPPORT_REGEX =
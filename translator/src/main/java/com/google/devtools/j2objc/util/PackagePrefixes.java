@@ -46,7 +46,7 @@ import javax.lang.model.element.PackageElement;
 public final class PackagePrefixes {
 
   private final PackageInfoLookup packageLookup;
-  private Map<String, String> mappedPrefixes = Maps.newHashMap();
+  private Map<String, String> mappedPrefixes = Maps.newConcurrentMap();
 
   // A key array is used so that wildcards are checked in declared order.
   // There is one wildcard value for each key, enforced within this class.
@@ -116,6 +116,19 @@ public abstract class Parser implements Closeable {
     sourcepathEntries.add(0, entry);
   }
 
+  /**
+   * Returns a new parser with the same paths, which shares no compiler state
+   * with this one, so that other sources can be parsed on another thread.
+   */
+  public Parser newParserWithSamePaths() {
+    Parser parser = newParser(options);
+    parser.classpathEntries.addAll(classpathEntries);
+    parser.sourcepathEntries.addAll(sourcepathEntries);
+    parser.includeRunningVMBootclasspath = includeRunningVMBootclasspath;
+    parser.setEnableDocComments(options.docCommentsEnabled());
+    return parser;
+  }
+
   public void setIncludeRunningVMBootclasspath(boolean includeVMBootclasspath) {
     includeRunningVMBootclasspath = includeVMBootclasspath;
   }
@@ -15,6 +15,7 @@
 package com.google.devtools.j2objc.util;
 
 import com.google.common.collect.Lists;
+import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.Options.TimingLevel;
 import java.io.PrintStream;
 import java.util.Arrays;
@@ -22,7 +23,10 @@ import java.util.List;
 
 /**
  * Utility for logging time slices of an operation. Supports slicing at multiple
- * levels so that one slice can be divided into sub-slices.
+ * levels so that one slice can be divided into sub-slices. Slices are printed
+ * with --timing-info, and added to the translation's {@link TimingProfile}
+ * with --timing-profile. The profile only gets slices without sub-slices, so
+ * that no time is counted twice.
  *
  * @author Keith Stanger
  */
@@ -36,12 +40,21 @@ public class TimeTracker {
     }
   }
 
+  public static TimeTracker getTicker(String name, Options options) {
+    boolean printResults = options.timingLevel() == TimingLevel.ALL;
+    TimingProfile profile = options.timingProfile();
+    if (printResults || profile != null) {
+      return new TimeTrackerImpl(name, printResults, profile);
+    }
+    return TimeTracker.noop();
+  }
+
   public static TimeTracker noop() {
     return new TimeTracker();
   }
 
   public static TimeTracker start(String name) {
-    return new TimeTrackerImpl(name);
+    return new TimeTrackerImpl(name, true, null);
   }
 
   public void tick(String event) {
@@ -72,37 +85,70 @@ public class TimeTracker {
     }
 
     long[] lastTicks = new long[16];
+    long[] lastAllocations = new long[16];
+    // Whether the current slice at each level was divided into sub-slices.
+    boolean[] hasSubSlices = new boolean[16];
     int currentLevel = 0;
     List<String> entries = Lists.newArrayList();
+    final boolean printResults;
+    final TimingProfile profile;
+
+    private TimeTrackerImpl(String name, boolean printResults, TimingProfile profile) {
+      this.printResults = printResults;
+      this.profile = profile;
+      if (printResults) {
+        entries.add("Timings for " + name);
+      }
+      start();
+    }
 
-    private TimeTrackerImpl(String name) {
-      entries.add("Timings for " + name);
-      lastTicks[currentLevel] = System.currentTimeMillis();
+    private void start() {
+      lastTicks[currentLevel] = System.nanoTime();
+      if (profile != null) {
+        lastAllocations[currentLevel] = TimingProfile.currentThreadAllocatedBytes();
+      }
     }
 
     @Override
     public void tick(String event) {
-      long now = System.currentTimeMillis();
+      long now = System.nanoTime();
       long time = now - lastTicks[currentLevel];
       lastTicks[currentLevel] = now;
-      entries.add(String.format("%s%5d ms - %s", INDENTS[currentLevel], time, event));
+      if (printResults) {
+        entries.add(String.format("%s%5d ms - %s", INDENTS[currentLevel], time / 1000000, event));
+      }
+      if (profile != null) {
+        long allocated = TimingProfile.currentThreadAllocatedBytes();
+        if (!hasSubSlices[currentLevel]) {
+          profile.record(event, time, allocated - lastAllocations[currentLevel]);
+        }
+        lastAllocations[currentLevel] = allocated;
+      }
+      hasSubSlices[currentLevel] = false;
     }
 
     @Override
     public void push() {
       currentLevel++;
-      lastTicks[currentLevel] = System.currentTimeMillis();
+      start();
     }
 
     @Override
     public void pop() {
       currentLevel--;
+      hasSubSlices[currentLevel] = true;
     }
 
     @Override
     public void printResults(PrintStream out) {
-      for (String entry : entries) {
-        out.println(entry);
+      if (!printResults) {
+        return;
+      }
+      // Keep each unit's entries together when generating on multiple threads.
+      synchronized (out) {
+        for (String entry : entries) {
+          out.println(entry);
+        }
       }
     }
   }
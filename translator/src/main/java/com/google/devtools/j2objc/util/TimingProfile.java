@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.devtools.j2objc.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates the time slices of all {@link TimeTracker}s in a translation by
+ * event name, and writes them as JSON to the file specified with
+ * --timing-profile. Each event records its call count, total time and the
+ * number of bytes allocated by the thread during the event, so the passes and
+ * generators that dominate a translation can be compared between builds.
+ */
+public class TimingProfile {
+
+  private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+  private final File outputFile;
+  private final long startTime = System.nanoTime();
+  private final Map<String, Event> events = new ConcurrentHashMap<>();
+
+  private static class Event {
+    final LongAdder count = new LongAdder();
+    final LongAdder nanos = new LongAdder();
+    final LongAdder allocatedBytes = new LongAdder();
+  }
+
+  public TimingProfile(File outputFile) {
+    this.outputFile = outputFile;
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread, or zero if
+   * the JVM doesn't support allocation tracking.
+   */
+  static long currentThreadAllocatedBytes() {
+    if (threadBean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threadBean)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+
+  /**
+   * Adds a time slice to an event. May be called from multiple threads.
+   */
+  public void record(String name, long nanos, long allocatedBytes) {
+    Event event = events.computeIfAbsent(name, k -> new Event());
+    event.count.increment();
+    event.nanos.add(nanos);
+    event.allocatedBytes.add(allocatedBytes);
+  }
+
+  /**
+   * Returns the profile as a JSON object. Events are sorted by total time,
+   * slowest first.
+   */
+  public String toJson() {
+    List<Map.Entry<String, Event>> entries = Lists.newArrayList(events.entrySet());
+    entries.sort((a, b) -> Long.compare(b.getValue().nanos.sum(), a.getValue().nanos.sum()));
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n");
+    double totalTime = (System.nanoTime() - startTime) / 1e6;
+    sb.append(String.format(Locale.ROOT, "  \"totalTimeMs\": %.3f,\n", totalTime));
+    sb.append("  \"events\": [");
+    String separator = "\n";
+    for (Map.Entry<String, Event> entry : entries) {
+      Event event = entry.getValue();
+      sb.append(separator);
+      sb.append(String.format(Locale.ROOT,
+          "    {\"name\": \"%s\", \"count\": %d, \"timeMs\": %.3f, \"allocatedBytes\": %d}",
+          escape(entry.getKey()), event.count.sum(), event.nanos.sum() / 1e6,
+          event.allocatedBytes.sum()));
+      separator = ",\n";
+    }
+    sb.append("\n  ]\n}\n");
+    return sb.toString();
+  }
+
+  public void write() {
+    try {
+      File dir = outputFile.getAbsoluteFile().getParentFile();
+      if (dir != null && !dir.exists()) {
+        dir.mkdirs();
+      }
+      Files.write(toJson(), outputFile, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      ErrorUtil.error("cannot write timing profile: " + e.getMessage());
+    }
+  }
+
+  private static String escape(String s) {
+    return s.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
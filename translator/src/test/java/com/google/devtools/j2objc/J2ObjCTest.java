@@ -17,7 +17,11 @@
 package com.google.devtools.j2objc;
 
 import com.google.devtools.j2objc.util.HeaderMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -231,4 +235,43 @@ public class J2ObjCTest extends GenerationTest {
     J2ObjC.run(Collections.singletonList(jarPath), options);
     assertWarningCount(1);
   }
+
+  public void testTranslationServer() throws Exception {
+    addSourceFile("class Foo {}", "Foo.java");
+    addSourceFile("class Bar { Foo f; }", "Bar.java");
+    String dir = tempDir.getAbsolutePath();
+    String flags = "-d " + dir + " -sourcepath " + dir + " -encoding UTF-8 ";
+    String requests = flags + dir + "/Foo.java\n\n" + flags + dir + "/Bar.java\n";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new TranslationServer(
+        new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)),
+        new PrintStream(out, true, "UTF-8")).run();
+
+    String doneLine = TranslationServer.DONE_PREFIX + "0 0";
+    assertEquals(doneLine + "\n" + doneLine + "\n", out.toString("UTF-8"));
+    assertTranslation(getTranslatedFile("Foo.h"), "@interface Foo : NSObject");
+    assertTranslation(getTranslatedFile("Bar.h"), "@interface Bar : NSObject");
+  }
+
+  public void testTranslationServerReportsInvalidFlags() throws Exception {
+    addSourceFile("class Foo {}", "Foo.java");
+    String dir = tempDir.getAbsolutePath();
+    String requests = "--no-such-flag " + dir + "/Foo.java\n"
+        + "-d " + dir + " -sourcepath " + dir + " " + dir + "/Foo.java\n";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new TranslationServer(
+        new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)),
+        new PrintStream(out, true, "UTF-8")).run();
+
+    // The invalid request fails without stopping the server.
+    assertEquals(TranslationServer.DONE_PREFIX + "1 0\n" + TranslationServer.DONE_PREFIX + "0 0\n",
+        out.toString("UTF-8"));
+    assertTranslation(getTranslatedFile("Foo.h"), "@interface Foo : NSObject");
+  }
+
+  public void testTranslationServerSplitsQuotedArgs() {
+    assertEquals(Arrays.asList("-d", "out dir", "a b/Foo.java", "it's", "c:\\d"),
+        TranslationServer.splitArgs(" -d 'out dir'  a\\ b/Foo.java \"it's\" c:\\\\d "));
+    assertNull(TranslationServer.splitArgs("-d 'out dir"));
+  }
 }
@@ -76,4 +76,11 @@ public class OptionsTest extends GenerationTest {
     // Passed target should be ignored.
     options.load(argsJavaTarget);
   }
+
+  public void testAdaptiveBatchTranslation() throws IOException {
+    options = new Options();
+    options.load(new String[] { "--batch-translate-max=auto" });
+    assertTrue(options.adaptiveBatchTranslation());
+    assertEquals(Integer.MAX_VALUE, options.batchTranslateMaximum());
+  }
 }
@@ -90,6 +90,18 @@ public class MethodReferenceTest extends GenerationTest {
         "}");
   }
 
+  // Non-capturing references are evaluated as a shared instance, not allocated each time.
+  public void testNonCapturingReferencesAreShared() throws IOException {
+    String translation = translateSourceFile(
+        "import java.util.Comparator; class I { I() { } } interface Call<T> { T call(); }"
+        + "class Test { void f() { Call<I> i = I::new; Comparator<String> s = String::compareTo; }}",
+        "Test", "Test.m");
+    assertTranslation(translation, "id<Call> i = JreLoadStatic(Test_$Lambda$1, instance);");
+    assertTranslation(translation,
+        "id<JavaUtilComparator> s = JreLoadStatic(Test_$Lambda$2, instance);");
+    assertNotInTranslation(translation, "create_Test_$Lambda$");
+  }
+
   public void testTypeReference() throws IOException {
     String typeReferenceHeader = "interface H { Object copy(int[] i); }";
     String translation = translateSourceFile(
@@ -204,4 +204,21 @@ public class ObjectiveCSourceFileGeneratorTest extends GenerationTest {
     assertTranslation(translation, inner2);
     assertTrue(translation.indexOf(inner2) < translation.indexOf(inner1));
   }
+
+  public void testWriteIfChanged() throws IOException {
+    options.setWriteIfChanged(true);
+    String source = "class Test { int foo() { return 1; } }";
+    translateSourceFile(source, "Test", "Test.m");
+    assertEquals(2, ErrorUtil.outputFileCount());
+    assertEquals(0, ErrorUtil.unchangedOutputFileCount());
+    translateSourceFile(source, "Test", "Test.m");
+    assertEquals(4, ErrorUtil.outputFileCount());
+    assertEquals(2, ErrorUtil.unchangedOutputFileCount());
+    String translation = translateSourceFile(
+        "class Test { int foo() { return 2; } }", "Test", "Test.m");
+    assertTranslation(translation, "return 2;");
+    // Only the header is unchanged.
+    assertEquals(6, ErrorUtil.outputFileCount());
+    assertEquals(3, ErrorUtil.unchangedOutputFileCount());
+  }
 }
@@ -230,7 +230,7 @@ public class StatementGeneratorTest extends GenerationTest {
     assertTranslation(translation,
         "JreStrongAssign(&self->b1_, JreLoadStatic(JavaLangBoolean, TRUE))");
     assertTranslation(translation,
-        "JreStrongAssign(&self->b2_, JreLoadStatic(JavaLangBoolean, FALSE))");
+        "JreStrongAssign(&self->b2_, JavaLangBoolean_FALSE)");
   }
 
   public void testStringConcatenation() throws IOException {
@@ -1014,11 +1014,11 @@ public class StatementGeneratorTest extends GenerationTest {
   // for a parameter to a translated method.
   public void testConcatPublicStaticString() throws IOException {
     String translation = translateSourceFile(
-        "class B { public static final String separator = \"/\"; } "
+        "class B { public static final String separator = new String(\"/\"); } "
         + "public class A { String prefix(Object o) { return new String(o + B.separator); }}",
         "A", "A.m");
     assertTranslation(translation,
-        "[NSString stringWithString:JreStrcat(\"@$\", o, B_separator)]");
+        "[NSString stringWithString:JreStrcat(\"@$\", o, JreLoadStatic(B, separator))]");
   }
 
   public void testStringConcatWithBoolean() throws IOException {
@@ -16,13 +16,17 @@ package com.google.devtools.j2objc.pipeline;
 
 import com.google.devtools.j2objc.GenerationTest;
 import com.google.devtools.j2objc.J2ObjC;
+import com.google.devtools.j2objc.Options;
 import com.google.devtools.j2objc.file.JarredInputFile;
 import com.google.devtools.j2objc.file.RegularInputFile;
 import com.google.devtools.j2objc.util.ErrorUtil;
+import com.google.devtools.j2objc.util.TimingProfile;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
@@ -102,4 +106,217 @@ public class TranslationProcessorTest extends GenerationTest {
     assertTranslation(translation, "- (void)foo2;");
     assertNotInTranslation(translation, "foo1");
   }
+
+  public void testParallelGeneration() throws IOException {
+    options.setTranslationJobs(2);
+
+    // Foo and Bar are translated in different shards.
+    addSourceFile("class Foo { Bar bar; void foo() {} }", "Foo.java");
+    addSourceFile("class Bar { void bar() {} }", "Bar.java");
+    addSourceFile("class Baz { void baz() {} }", "Baz.java");
+
+    GenerationBatch batch = new GenerationBatch(options);
+    batch.addSource(new RegularInputFile(getTempDir() + "/Foo.java", "Foo.java"));
+    batch.addSource(new RegularInputFile(getTempDir() + "/Bar.java", "Bar.java"));
+    batch.addSource(new RegularInputFile(getTempDir() + "/Baz.java", "Baz.java"));
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.processInputs(batch.getInputs());
+    processor.awaitGeneration();
+
+    assertErrorCount(0);
+    String fooHeader = getTranslatedFile("Foo.h");
+    assertTranslation(fooHeader, "@class Bar;");
+    assertTranslation(fooHeader, "- (void)foo;");
+    assertTranslation(getTranslatedFile("Bar.h"), "- (void)bar;");
+    assertTranslation(getTranslatedFile("Baz.m"), "- (void)baz {");
+  }
+
+  public void testTranslationCacheSkipsUpToDateInputs() throws IOException {
+    options.setCacheDirectory(getTempFile("cache"));
+    addSourceFile("class Foo { Bar b; }", "Foo.java");
+    addSourceFile("class Bar { }", "Bar.java");
+
+    List<ProcessingContext> inputs = createInputs("Foo.java", "Bar.java");
+    TranslationCache cache = TranslationCache.create(options);
+    cache.removeUpToDateInputs(inputs);
+    assertEquals(2, inputs.size());
+    TranslationProcessor processor =
+        new TranslationProcessor(J2ObjC.createParser(options), null, cache);
+    processor.processInputs(inputs);
+    processor.postProcess();
+    assertErrorCount(0);
+
+    inputs = createInputs("Foo.java", "Bar.java");
+    cache = TranslationCache.create(options);
+    cache.removeUpToDateInputs(inputs);
+    assertTrue(inputs.isEmpty());
+    assertEquals(2, cache.skippedCount());
+
+    // Changing Bar invalidates both Bar and Foo, which references it.
+    addSourceFile("class Bar { int i; }", "Bar.java");
+    inputs = createInputs("Foo.java", "Bar.java");
+    cache = TranslationCache.create(options);
+    cache.removeUpToDateInputs(inputs);
+    assertEquals(2, inputs.size());
+  }
+
+  public void testTranslationCacheTracksConstantsAndSupertypes() throws IOException {
+    options.setCacheDirectory(getTempFile("cache"));
+    addSourceFile("class Foo extends Bar { int i = Consts.X; }", "Foo.java");
+    addSourceFile("class Bar extends Baz { }", "Bar.java");
+    addSourceFile("class Baz { }", "Baz.java");
+    addSourceFile("class Consts { static final int X = 1; }", "Consts.java");
+
+    List<ProcessingContext> inputs = createInputs("Foo.java");
+    TranslationCache cache = TranslationCache.create(options);
+    cache.removeUpToDateInputs(inputs);
+    TranslationProcessor processor =
+        new TranslationProcessor(J2ObjC.createParser(options), null, cache);
+    processor.processInputs(inputs);
+    processor.postProcess();
+    assertErrorCount(0);
+    assertNotInTranslation(getTranslatedFile("Foo.h"), "Consts");
+
+    inputs = createInputs("Foo.java");
+    TranslationCache.create(options).removeUpToDateInputs(inputs);
+    assertTrue(inputs.isEmpty());
+
+    // The value of Consts.X is inlined, so Foo's output doesn't import Consts.
+    addSourceFile("class Consts { static final int X = 2; }", "Consts.java");
+    inputs = createInputs("Foo.java");
+    TranslationCache.create(options).removeUpToDateInputs(inputs);
+    assertEquals(1, inputs.size());
+
+    // Baz is an indirect supertype of Foo.
+    addSourceFile("class Consts { static final int X = 1; }", "Consts.java");
+    addSourceFile("class Baz { void baz() {} }", "Baz.java");
+    inputs = createInputs("Foo.java");
+    TranslationCache.create(options).removeUpToDateInputs(inputs);
+    assertEquals(1, inputs.size());
+  }
+
+  public void testTranslationCacheIgnoresNonOutputFlags() throws IOException {
+    Options plain = new Options();
+    plain.load(new String[0]);
+    Options withJobs = new Options();
+    withJobs.load(new String[] { "--jobs=4", "--cache-dir", getTempDir() + "/cache" });
+    Options swiftFriendly = new Options();
+    swiftFriendly.load(new String[] { "--swift-friendly" });
+    assertEquals(TranslationCache.hashEnvironment(plain),
+        TranslationCache.hashEnvironment(withJobs));
+    assertFalse(TranslationCache.hashEnvironment(plain).equals(
+        TranslationCache.hashEnvironment(swiftFriendly)));
+  }
+
+  public void testTranslationCacheHashesPrefixesFile() throws IOException {
+    String prefixes = addSourceFile("foo.bar=FB\n", "prefixes.properties");
+    Options first = new Options();
+    first.load(new String[] { "--prefixes", prefixes });
+    // Edited in place, so the flags are unchanged.
+    addSourceFile("foo.bar=FOB\n", "prefixes.properties");
+    Options second = new Options();
+    second.load(new String[] { "--prefixes", prefixes });
+    assertFalse(TranslationCache.hashEnvironment(first).equals(
+        TranslationCache.hashEnvironment(second)));
+  }
+
+  public void testTranslationCacheRejectsHeaderMappings() throws IOException {
+    String cacheDir = getTempDir() + "/cache";
+    new Options().load(new String[] { "--cache-dir", cacheDir, "--preserve-full-paths" });
+    assertEquals(1, ErrorUtil.errorCount());
+    new Options().load(new String[] {
+        "--cache-dir", cacheDir, "--output-header-mapping", getTempDir() + "/mappings.j2objc" });
+    assertEquals(2, ErrorUtil.errorCount());
+  }
+
+  private List<ProcessingContext> createInputs(String... paths) {
+    GenerationBatch batch = new GenerationBatch(options);
+    for (String path : paths) {
+      batch.addSource(new RegularInputFile(getTempDir() + "/" + path, path));
+    }
+    return new ArrayList<>(batch.getInputs());
+  }
+
+  public void testAdaptiveBatchTranslation() throws IOException {
+    options.setAdaptiveBatchTranslation(true);
+    options.setBatchTranslateMaximum(Integer.MAX_VALUE);
+    addSourceFile("class Foo { Bar b; }", "Foo.java");
+    addSourceFile("class Bar { }", "Bar.java");
+
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.processInputs(createInputs("Foo.java", "Bar.java"));
+
+    assertErrorCount(0);
+    assertTranslation(getTranslatedFile("Foo.h"), "@interface Foo");
+    assertTranslation(getTranslatedFile("Bar.h"), "@interface Bar");
+  }
+
+  public void testAdaptiveBatchLimit() {
+    double[] heapUse = { 0.0 };
+    FileProcessor.AdaptiveBatchLimit limit =
+        new FileProcessor.AdaptiveBatchLimit(() -> heapUse[0]);
+    long initial = FileProcessor.AdaptiveBatchLimit.INITIAL_BATCH_BYTES;
+    assertEquals(initial, limit.getLimit());
+
+    // A full batch with plenty of headroom doubles the limit.
+    assertFalse(limit.addSource(initial - 1));
+    assertTrue(limit.addSource(1));
+    heapUse[0] = 0.2;
+    limit.sampleHeapUse();
+    limit.endBatch();
+    assertEquals(initial * 2, limit.getLimit());
+
+    // A partial batch, or a moderate heap use, keeps it.
+    assertFalse(limit.addSource(1));
+    limit.sampleHeapUse();
+    limit.endBatch();
+    assertEquals(initial * 2, limit.getLimit());
+    assertTrue(limit.addSource(initial * 2));
+    heapUse[0] = 0.5;
+    limit.sampleHeapUse();
+    limit.endBatch();
+    assertEquals(initial * 2, limit.getLimit());
+
+    // The peak use of a batch halves it, even if later samples are low.
+    limit.addSource(initial);
+    heapUse[0] = 0.8;
+    limit.sampleHeapUse();
+    heapUse[0] = 0.1;
+    limit.sampleHeapUse();
+    limit.endBatch();
+    assertEquals(initial, limit.getLimit());
+
+    heapUse[0] = 0.9;
+    for (int i = 0; i < 10; i++) {
+      limit.addSource(1);
+      limit.sampleHeapUse();
+      limit.endBatch();
+    }
+    assertEquals(FileProcessor.AdaptiveBatchLimit.MIN_BATCH_BYTES, limit.getLimit());
+    heapUse[0] = 0.0;
+    for (int i = 0; i < 20; i++) {
+      limit.addSource(limit.getLimit());
+      limit.sampleHeapUse();
+      limit.endBatch();
+    }
+    assertEquals(FileProcessor.AdaptiveBatchLimit.MAX_BATCH_BYTES, limit.getLimit());
+  }
+
+  public void testTimingProfile() throws IOException {
+    TimingProfile profile = new TimingProfile(getTempFile("profile.json"));
+    options.setTimingProfile(profile);
+    addSourceFile("class Foo { Integer i = 1; }", "Foo.java");
+
+    TranslationProcessor processor = new TranslationProcessor(J2ObjC.createParser(options), null);
+    processor.processInputs(createInputs("Foo.java"));
+
+    String json = profile.toJson();
+    assertTranslation(json, "\"totalTimeMs\": ");
+    assertTranslation(json, "{\"name\": \"Autoboxer\", \"count\": 1, \"timeMs\": ");
+    assertTranslation(json, "{\"name\": \"Header generation\", \"count\": 1, \"timeMs\": ");
+    assertTranslation(json, "{\"name\": \"Type generation\", \"count\": 1, \"timeMs\": ");
+    // Slices that contain other slices aren't counted twice.
+    assertNotInTranslation(json, "Tree mutations");
+    assertNotInTranslation(json, "Source generation");
+  }
 }
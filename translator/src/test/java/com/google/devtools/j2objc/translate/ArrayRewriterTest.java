@@ -54,4 +54,23 @@ public class ArrayRewriterTest extends GenerationTest {
     assertEquals("++((*IOSIntArray_GetRef(x, 0)));", generateStatement(stmts.get(5)));
     assertEquals("((*IOSIntArray_GetRef(x, 0)))++;", generateStatement(stmts.get(6)));
   }
+
+  // Verify that accesses in counted loops over an array aren't bounds checked.
+  public void testCountedLoopArrayAccess() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { "
+        + "int sum(int[] a) { int s = 0; for (int i = 0; i < a.length; i++) { s += a[i]; } "
+        + "  return s; } "
+        + "void fill(int[] a, int[] b) { "
+        + "  for (int i = 0, n = a.length; i < n; i++) { a[i] = 1; b[i] = 2; } } "
+        + "void skip(int[] a) { for (int i = 0; i < a.length; i++) { a[i] = 0; i++; } } "
+        + "void reassign(int[] a, int[] b) { "
+        + "  for (int i = 0; i < a.length; i++) { a[i] = 0; a = b; } } }",
+        "Test", "Test.m");
+    assertTranslation(translation, "s += *(a->buffer_ + i);");
+    assertTranslation(translation, "*(a->buffer_ + i) = 1;");
+    assertTranslation(translation, "*IOSIntArray_GetRef(nil_chk(b), i) = 2;");
+    assertTranslation(translation, "*IOSIntArray_GetRef(a, i) = 0;");
+    assertOccurrences(translation, "->buffer_", 2);
+  }
 }
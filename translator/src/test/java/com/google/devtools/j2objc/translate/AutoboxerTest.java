@@ -403,8 +403,8 @@ public class AutoboxerTest extends GenerationTest {
 
   public void testBoxedIncrementAndDecrement() throws Exception {
     String translation = translateSourceFile(
-        "class Test { void test() { Integer i = 1; i++; Byte b = 2; b--; Character c = 'a'; ++c; "
-        + "Double d = 3.0; --d; } }", "Test", "Test.m");
+        "class Test { void test(Integer i, Byte b, Character c, Double d) { "
+        + "i++; b--; ++c; --d; } }", "Test", "Test.m");
     assertTranslation(translation, "PostIncrInt(&i);");
     assertTranslation(translation, "PostDecrByte(&b);");
     assertTranslation(translation, "PreIncrChar(&c);");
@@ -497,4 +497,26 @@ public class AutoboxerTest extends GenerationTest {
         + "  long tmp_long = (long)tmp_int; }}", "Test", "Test.m");
     assertTranslation(translation, "jlong tmp_long = [tmp_int longLongValue];");
   }
+
+  public void testUnboxedLocalVariables() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { int test(int[] values) { Integer sum = 0; Integer count = 0; "
+        + "for (int v : values) { sum += v; count++; } Object o = count; return sum; } }",
+        "Test", "Test.m");
+    // sum is only used as a primitive.
+    assertTranslation(translation, "jint sum = 0;");
+    assertTranslation(translation, "sum += v;");
+    assertTranslation(translation, "return sum;");
+    // count escapes as an object.
+    assertTranslation(translation,
+        "JavaLangInteger *count = JavaLangInteger_valueOfWithInt_(0);");
+    assertTranslation(translation, "JreBoxedPostIncrInt(&count);");
+  }
+
+  public void testBoxedValueUnboxed() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { int test(int i) { return (Integer) i; } }", "Test", "Test.m");
+    assertTranslation(translation, "return i;");
+    assertNotInTranslation(translation, "JavaLangInteger_valueOfWithInt_");
+  }
 }
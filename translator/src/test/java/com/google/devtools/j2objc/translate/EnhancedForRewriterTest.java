@@ -102,4 +102,32 @@ public class EnhancedForRewriterTest extends GenerationTest {
         "  break_testLabel2: ;",
         "}");
   }
+
+  public void testIndexedListLoop() throws IOException {
+    options.setIndexedListLoops(true);
+    String translation = translateSourceFile(
+        "import java.util.*; import java.util.concurrent.*;"
+        + "final class Names extends AbstractList<String> implements RandomAccess { "
+        + "  public String get(int i) { return null; } public int size() { return 0; } }"
+        + "class Test { void test(Names names, Vector<String> vector, "
+        + "CopyOnWriteArrayList<String> cowList, ArrayList<String> arrayList) { "
+        + "for (String s : names) {} for (String s : vector) {} "
+        + "for (String s : cowList) {} for (String s : arrayList) {} } }",
+        "Test", "Test.m");
+    assertTranslatedLines(translation,
+        "{",
+        "  id<JavaUtilList> a__ = names;",
+        "  jint n__ = [((id<JavaUtilList>) nil_chk(a__)) size];",
+        "  jint i__ = 0;",
+        "  while (i__ < n__) {",
+        "    NSString *s = [a__ getWithInt:i__++];",
+        "  }",
+        "}");
+    // Vector isn't final and is synchronized, and concurrent lists must use
+    // their own iterators.
+    assertTranslation(translation, "for (NSString * __strong s in vector) {");
+    assertTranslation(translation, "for (NSString * __strong s in cowList) {");
+    // ArrayList's fast enumeration is already indexed.
+    assertTranslation(translation, "for (NSString * __strong s in arrayList) {");
+  }
 }
@@ -16,6 +16,7 @@ package com.google.devtools.j2objc.translate;
 
 import com.google.devtools.j2objc.GenerationTest;
 import com.google.devtools.j2objc.Options.MemoryManagementOption;
+import com.google.devtools.j2objc.util.CodeReferenceMap;
 
 import java.io.IOException;
 
@@ -79,6 +80,23 @@ public class FunctionizerTest extends GenerationTest {
         "return [self strWithNSString:msg withIOSClass:[self java_getClass]];");
   }
 
+  // Verify a method listed by --final-methods-report is functionized, and
+  // still generated as a method for callers in other units.
+  public void testEffectivelyFinalMethod() throws IOException {
+    options.setEffectivelyFinalMethods(CodeReferenceMap.builder()
+        .addMethod("A", "str", "(Ljava/lang/String;)Ljava/lang/String;").build());
+    String translation = translateSourceFile(
+        "class A { String test(String msg) { return str(msg) + other(msg); } "
+        + "  public String str(String msg) { return msg; }"
+        + "  public String other(String msg) { return msg; }}",
+        "A", "A.m");
+    assertTranslation(translation, "static NSString *A_strWithNSString_(A *self, NSString *msg);");
+    assertTranslation(translation, "- (NSString *)strWithNSString:(NSString *)msg {");
+    assertTranslation(translation, "A_strWithNSString_(self, msg)");
+    assertTranslation(translation, "[self otherWithNSString:msg]");
+    assertNotInTranslation(translation, "A_otherWithNSString_");
+  }
+
   // Verify instance field access in function.
   public void testFieldAccessInFunction() throws IOException {
     String translation = translateSourceFile(
@@ -162,6 +162,54 @@ public class MetadataWriterTest extends GenerationTest {
         + "0, 0, -1, -1, -1, -1 };");
   }
 
+  public void testSharedMetadataTables() throws IOException {
+    options.setSharedMetadataTables(true);
+    String translation = translateSourceFile(
+        "class A { class B {} class C {} }", "A", "A.m");
+    // B and C refer to the same "LA;" entry as their declaring class.
+    assertTranslation(translation,
+        "static const void *A__ptrTable[] = { \"LA_B;LA_C;\", \"LA;\" };");
+    assertTranslation(translation,
+        "static const J2ObjcClassInfo _A = { \"A\", NULL, A__ptrTable, methods, NULL, 7, 0x0, "
+        + "1, 0, -1, 0, -1, -1, -1 };");
+    assertTranslation(translation,
+        "static const J2ObjcClassInfo _A_C = { \"C\", NULL, A__ptrTable, methods, NULL, 7, 0x0, "
+        + "1, 0, 1, -1, -1, -1, -1 };");
+    assertNotInTranslation(translation, "static const void *ptrTable[]");
+    // The table is printed before the types' implementations that refer to it.
+    assertTrue(translation.indexOf("A__ptrTable[] =") < translation.indexOf("@implementation A"));
+  }
+
+  public void testSharedMetadataTableReferences() throws IOException {
+    options.setSharedMetadataTables(true);
+    String translation = translateSourceFile(
+        "class A { static Object s; @Deprecated void foo() {} }", "A", "A.m");
+    int tableIdx = translation.indexOf("static const void *A__ptrTable[] = {");
+    assertTrue(tableIdx >= 0);
+    String table = translation.substring(tableIdx, translation.indexOf('\n', tableIdx));
+    assertTrue(table.contains("&A_s"));
+    assertTrue(table.contains("(void *)&A__Annotations$0"));
+    // The table follows the declarations of the functions it refers to.
+    assertTrue(translation.indexOf("A__Annotations$0()") < tableIdx);
+    assertTrue(tableIdx < translation.indexOf("@implementation A"));
+  }
+
+  public void testSharedMetadataTablesInCombinedUnit() throws IOException {
+    options.setSharedMetadataTables(true);
+    addSourceFile("package unit; public class Test { }", "unit/Test.java");
+    addSourceFile("package unit; public class AnotherTest extends Test { }",
+        "unit/AnotherTest.java");
+    String translation = translateCombinedFiles(
+        "unit/Foo", ".m", "unit/Test.java", "unit/AnotherTest.java");
+    // The types of both sources share the output file's table.
+    assertTranslation(translation, "static const void *UnitTest__ptrTable[] = {");
+    assertNotInTranslation(translation, "UnitAnotherTest__ptrTable");
+    assertTranslation(translation,
+        "static const J2ObjcClassInfo _UnitAnotherTest = { \"AnotherTest\", \"unit\", "
+        + "UnitTest__ptrTable,");
+    assertOccurrences(translation, "static const void *", 1);
+  }
+
   public void testMethodAnnotationNoParameters() throws IOException {
     String translation = translateSourceFile(
         "import org.junit.*;"
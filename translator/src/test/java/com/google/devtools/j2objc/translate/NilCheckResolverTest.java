@@ -355,4 +355,22 @@ public class NilCheckResolverTest extends GenerationTest {
     assertTranslation(translation, "@throw nil_chk(e);");
     assertTranslation(translation, "@throw create_JavaLangRuntimeException_init();");
   }
+
+  public void testAssumeNonnull() throws IOException {
+    options.setAssumeNonnull(true);
+    String translation = translateSourceFile(
+        "import javax.annotation.Nonnull; "
+        + "class Test { static class Foo { int i; @Nonnull Foo next() { return this; } } "
+        + "final Foo created = new Foo(); final Foo maybe; @Nonnull Foo annotated; "
+        + "Test(Foo f) { maybe = f; } "
+        + "int test(@Nonnull Foo p, Foo q) { "
+        + "  return created.i + maybe.i + annotated.i + p.i + q.i + q.next().i; } }",
+        "Test", "Test.m");
+    assertTranslation(translation, "created_->i_");
+    assertTranslation(translation, "((Test_Foo *) nil_chk(maybe_))->i_");
+    assertTranslation(translation, "annotated_->i_");
+    assertTranslation(translation, "p->i_");
+    assertTranslation(translation, "((Test_Foo *) nil_chk(q))->i_");
+    assertTranslation(translation, "[q next]->i_");
+  }
 }
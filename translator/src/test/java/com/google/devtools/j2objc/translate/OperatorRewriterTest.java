@@ -152,6 +152,17 @@ public class OperatorRewriterTest extends GenerationTest {
     assertTranslation(translation, "JreStrAppend(&str, \"$I\", @\"bar\", x);");
   }
 
+  public void testStringConcatenationConstantFolding() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { static final String FOO = \"foo\"; static final int N = 42;"
+        + " String test(String s) { String t = FOO + N; s += FOO;"
+        + " return FOO + ':' + N + s + 'x' + 1.5 + FOO; } }", "Test", "Test.m");
+    assertTranslatedLines(translation,
+        "NSString *t = @\"foo42\";",
+        "JreStrAppend(&s, \"$\", @\"foo\");",
+        "return JreStrcat(\"$$$\", @\"foo:42\", s, @\"x1.5foo\");");
+  }
+
   public void testRetainedWithAnnotation() throws IOException {
     String translation = translateSourceFile(
         "import com.google.j2objc.annotations.RetainedWith;"
@@ -207,8 +207,8 @@ public class RewriterTest extends GenerationTest {
 
   public void testAdditionWithinStringConcatenation() throws IOException {
     String translation = translateSourceFile(
-        "class Test { void test() { String s = 1 + 2.3f + \"foo\"; } }", "Test", "Test.m");
-    assertTranslation(translation, "NSString *s = JreStrcat(\"F$\", 1 + 2.3f, @\"foo\");");
+        "class Test { void test(int i) { String s = i + 2.3f + \"foo\"; } }", "Test", "Test.m");
+    assertTranslation(translation, "NSString *s = JreStrcat(\"F$\", i + 2.3f, @\"foo\");");
   }
 
   public void testMethodCollisionWithSuperclassField() throws IOException {
@@ -75,7 +75,24 @@ public class StaticVarRewriterTest extends GenerationTest {
         "Test", "Test.m");
     assertTranslatedLines(translation,
         "*IOSIntArray_GetRef(nil_chk(JreLoadStatic(Test_Inner, ints)), 0) = 1;",
-        "*IOSIntArray_GetRef(JreLoadStatic(Test_Inner, ints), 0) += 2;",
-        "return IOSIntArray_Get(JreLoadStatic(Test_Inner, ints), 0);");
+        "*IOSIntArray_GetRef(Test_Inner_ints, 0) += 2;",
+        "return IOSIntArray_Get(Test_Inner_ints, 0);");
+  }
+
+  public void testElidedStaticLoads() throws IOException {
+    String translation = translateSourceFile(
+        "class Test { static class A { static Object o = new Object(); static int i; } "
+        + " static class B extends A { Object test() { return o; } "
+        + "   static Object test2() { return o; } } "
+        + " int test3(boolean b) { int j = b ? A.i : 0; Object p = A.o; return A.i + j; } }",
+        "Test", "Test.m");
+    // Instances of B imply that A is initialized.
+    assertTranslatedLines(translation, "- (id)test {", "return Test_A_o;");
+    assertTranslation(translation, "return JreLoadStatic(Test_A, o);");
+    // Only an unconditional load initializes A for the following statements.
+    assertTranslatedLines(translation,
+        "jint j = b ? JreLoadStatic(Test_A, i) : 0;",
+        "id p = JreLoadStatic(Test_A, o);",
+        "return Test_A_i + j;");
   }
 }
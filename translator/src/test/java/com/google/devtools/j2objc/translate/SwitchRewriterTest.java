@@ -166,6 +166,49 @@ public class SwitchRewriterTest extends GenerationTest {
         "}");
   }
 
+  // Verify that larger string switches are sorted by the values' hash codes.
+  public void testHashedStringSwitchStatement() throws IOException {
+    String translation = translateSourceFile(
+        "public class Test { "
+        + "static final String OPTIONS = \"options\";"
+        + "int test(String s) { "
+        + "  switch(s) {"
+        + "    case \"get\": return 0;"
+        + "    case \"put\": return 1;"
+        + "    case \"post\": return 2;"
+        + "    case \"delete\": return 3;"
+        + "    case \"head\": return 4;"
+        + "    case \"Aa\": return 5;"
+        + "    case \"BB\": return 6;"
+        + "    case OPTIONS: return 7;"
+        + "    default: return -1;"
+        + "  }}}",
+        "Test", "Test.m");
+    assertTranslatedLines(translation,
+        "switch (JreIndexOfStrHashed(s, (id[]){ @\"delete\", Test_OPTIONS, @\"Aa\", @\"BB\", "
+            + "@\"get\", @\"put\", @\"head\", @\"post\" }, (jint[]){ -1335458389, -1249474914, "
+            + "2112, 2112, 102230, 111375, 3198432, 3446944 }, 8)) {",
+        "  case 4:",
+        "  return 0;",
+        "  case 5:",
+        "  return 1;",
+        "  case 7:",
+        "  return 2;",
+        "  case 0:",
+        "  return 3;",
+        "  case 6:",
+        "  return 4;",
+        "  case 2:",
+        "  return 5;",
+        "  case 3:",
+        "  return 6;",
+        "  case 1:",
+        "  return 7;",
+        "  default:",
+        "  return -1;",
+        "}");
+  }
+
   /**
    * Verify that when a the last switch case is empty (no statement),
    * an empty statement is added.  Java doesn't require an empty statement
@@ -18,6 +18,7 @@ import com.google.devtools.j2objc.ast.AbstractTypeDeclaration;
 import com.google.devtools.j2objc.ast.ClassInstanceCreation;
 import com.google.devtools.j2objc.ast.CompilationUnit;
 import com.google.devtools.j2objc.ast.ConstructorInvocation;
+import com.google.devtools.j2objc.ast.CreationReference;
 import com.google.devtools.j2objc.ast.EnumDeclaration;
 import com.google.devtools.j2objc.ast.MethodDeclaration;
 import com.google.devtools.j2objc.ast.MethodInvocation;
@@ -118,11 +119,13 @@ public class ElementReferenceMapper extends UnitTreeVisitor {
     boolean declared = false;
     Set<String> invokedMethods;
     Set<String> overridingMethods;
+    Set<TypeElement> instantiatedTypes;
 
     public MethodReferenceNode(ExecutableElement methodElement) {
       this.methodElement = methodElement;
       this.invokedMethods = new HashSet<String>();
       this.overridingMethods = new HashSet<String>();
+      this.instantiatedTypes = new HashSet<TypeElement>();
     }
 
     @Override
@@ -223,9 +226,10 @@ public class ElementReferenceMapper extends UnitTreeVisitor {
    * the override map, and links the child method in the invokedMethods set.
    * @param parentMethodElement
    * @param childMethodElement
+   * @return the parent's node
    */
-  private void handleParentMethod(ExecutableElement parentMethodElement, ExecutableElement
-      childMethodElement) {
+  private MethodReferenceNode handleParentMethod(ExecutableElement parentMethodElement,
+      ExecutableElement childMethodElement) {
     MethodReferenceNode parentMethodNode = (MethodReferenceNode) elementReferenceMap
         .get(stitchMethodIdentifier(parentMethodElement));
     if (parentMethodNode == null) {
@@ -234,12 +238,14 @@ public class ElementReferenceMapper extends UnitTreeVisitor {
     parentMethodNode.invokedMethods.add(stitchMethodIdentifier(childMethodElement));
     elementReferenceMap.put(stitchMethodIdentifier(parentMethodElement), parentMethodNode);
     addToOverrideMap(parentMethodElement);
+    return parentMethodNode;
   }
 
   /**
    * When a constructor in invoked (including a default constructor), adds the constructor and
    * invoking method to elementReferenceMap. The class will eventually be marked as used.
    * Counts as both the declaration (in class) and invocation (new _()) of the constructor.
+   * The invoking method also records the instantiated class, for rapid type analysis.
    */
   @Override
   public void endVisit(ClassInstanceCreation instance) {
@@ -252,7 +258,33 @@ public class ElementReferenceMapper extends UnitTreeVisitor {
       return;
     }
     ExecutableElement parentMethodElement = parentMethodDeclaration.getExecutableElement();
-    handleParentMethod(parentMethodElement, childMethodElement);
+    TypeDeclaration anonymousClass = instance.getAnonymousClassDeclaration();
+    handleParentMethod(parentMethodElement, childMethodElement).instantiatedTypes.add(
+        anonymousClass != null ? anonymousClass.getTypeElement()
+            : ElementUtil.getDeclaringClass(childMethodElement));
+  }
+
+  /**
+   * A constructor reference (Type::new) is handled like a ClassInstanceCreation, since the
+   * referenced constructor can be invoked wherever the reference is passed.
+   */
+  @Override
+  public void endVisit(CreationReference reference) {
+    ExecutableElement childMethodElement = reference.getExecutableElement();
+    if (childMethodElement == null) {
+      // An array constructor reference, such as int[]::new.
+      return;
+    }
+    handleChildMethod(childMethodElement);
+
+    MethodDeclaration parentMethodDeclaration = TreeUtil.getEnclosingMethod(reference);
+    if (parentMethodDeclaration == null) {
+      staticSet.add(stitchMethodIdentifier(childMethodElement));
+      return;
+    }
+    ExecutableElement parentMethodElement = parentMethodDeclaration.getExecutableElement();
+    handleParentMethod(parentMethodElement, childMethodElement).instantiatedTypes.add(
+        ElementUtil.getDeclaringClass(childMethodElement));
   }
 
   @Override
@@ -59,6 +59,8 @@ class Options {
   private List<String> sourceFiles = Lists.newArrayList();
   private String fileEncoding = System.getProperty("file.encoding", "UTF-8");
   private boolean treatWarningsAsErrors = false;
+  private String finalMethodsReportFile = null;
+  private boolean rapidTypeAnalysis = false;
 
   // The default source version number if not passed with -source is determined from the system
   // properties of the running java version after parsing the argument list.
@@ -165,6 +167,13 @@ class Options {
           usage("--tree-shaker-roots");
         }
         publicRootSetFile = new File(args[nArg]);
+      } else if (arg.equals("--final-methods-report")) {
+        if (++nArg == args.length) {
+          usage("--final-methods-report requires an argument");
+        }
+        options.finalMethodsReportFile = args[nArg];
+      } else if (arg.equals("--rapid-type-analysis")) {
+        options.rapidTypeAnalysis = true;
       //TODO(malvania): Enable the bootclasspath option when we have a class file AST
       //                parser that can use class jars.
       } else if (arg.startsWith(XBOOTCLASSPATH)) {
@@ -210,4 +219,12 @@ class Options {
   public File getPublicRootSetFile() {
     return publicRootSetFile;
   }
+
+  public String getFinalMethodsReportFile() {
+    return finalMethodsReportFile;
+  }
+
+  public boolean rapidTypeAnalysis() {
+    return rapidTypeAnalysis;
+  }
 }
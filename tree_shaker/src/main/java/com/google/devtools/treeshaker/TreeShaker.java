@@ -14,7 +14,9 @@
 
 package com.google.devtools.treeshaker;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Table.Cell;
 import com.google.common.io.Files;
@@ -31,10 +33,13 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * A tool for finding unused code in a Java program.
@@ -43,9 +48,23 @@ import java.util.Set;
  */
 public class TreeShaker {
 
+  private static final ImmutableMap<Character, String> PRIMITIVE_NAMES =
+      ImmutableMap.<Character, String>builder()
+      .put('B', "byte")
+      .put('C', "char")
+      .put('D', "double")
+      .put('F', "float")
+      .put('I', "int")
+      .put('J', "long")
+      .put('S', "short")
+      .put('V', "void")
+      .put('Z', "boolean")
+      .build();
+
   private final Options options;
   private final com.google.devtools.j2objc.Options j2objcOptions;
   private TranslationEnvironment env = null;
+  private UnusedCodeTracker tracker = null;
 
   static {
     // Enable assertions in the tree shaker.
@@ -166,14 +185,22 @@ public class TreeShaker {
       return null;
     }
 
-    UnusedCodeTracker tracker = new UnusedCodeTracker(env, elementReferenceMap, staticSet,
-        overrideMap);
+    tracker = new UnusedCodeTracker(env, elementReferenceMap, staticSet, overrideMap);
+    tracker.setRapidTypeAnalysis(options.rapidTypeAnalysis());
     tracker.mapOverridingMethods();
     tracker.markUsedElements(inputRootSet);
     CodeReferenceMap codeMap = tracker.buildTreeShakerMap();
     return codeMap;
   }
 
+  /**
+   * Returns the methods of the program that getUnusedCode analyzed which have no overrides, or
+   * null if it hasn't run or failed.
+   */
+  public CodeReferenceMap getEffectivelyFinalMethods() {
+    return tracker != null ? tracker.buildEffectivelyFinalMap() : null;
+  }
+
   private static CodeReferenceMap loadRootSetMap(Options options) {
     return ProGuardUsageParser.parseDeadCodeFile(options.getPublicRootSetFile());
   }
@@ -202,6 +229,64 @@ public class TreeShaker {
     }
   }
 
+  /**
+   * Writes the methods of a map in the ProGuard usage format, which the translator's
+   * --final-methods-report flag reads.
+   */
+  public static void writeProGuardMethods(BufferedWriter writer, CodeReferenceMap map)
+      throws IOException {
+    Map<String, Map<String, ImmutableSet<String>>> classes =
+        new TreeMap<>(map.getReferencedMethods().rowMap());
+    for (Map.Entry<String, Map<String, ImmutableSet<String>>> clazz : classes.entrySet()) {
+      writer.write(clazz.getKey() + ":\n");
+      for (Map.Entry<String, ImmutableSet<String>> method :
+           new TreeMap<>(clazz.getValue()).entrySet()) {
+        for (String signature : method.getValue()) {
+          int argsEnd = signature.indexOf(')');
+          writer.write("    " + Joiner.on(',').join(getTypeNames(signature.substring(argsEnd + 1)))
+              + " " + method.getKey() + "("
+              + Joiner.on(',').join(getTypeNames(signature.substring(1, argsEnd))) + ")\n");
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the Java names of the types in a sequence of type descriptors.
+   */
+  private static List<String> getTypeNames(String descriptors) {
+    List<String> names = new ArrayList<>();
+    int i = 0;
+    while (i < descriptors.length()) {
+      int dimensions = 0;
+      while (descriptors.charAt(i) == '[') {
+        dimensions++;
+        i++;
+      }
+      String name;
+      if (descriptors.charAt(i) == 'L') {
+        int end = descriptors.indexOf(';', i);
+        name = descriptors.substring(i + 1, end).replace('/', '.');
+        i = end + 1;
+      } else {
+        name = PRIMITIVE_NAMES.get(descriptors.charAt(i++));
+      }
+      names.add(name + Strings.repeat("[]", dimensions));
+    }
+    return names;
+  }
+
+  public static void writeProGuardMethodsToFile(String fileName, CodeReferenceMap map) {
+    File file = new File(fileName);
+    try {
+      BufferedWriter writer = Files.newWriter(file, Charset.defaultCharset());
+      writeProGuardMethods(writer, map);
+      writer.close();
+    } catch (IOException e) {
+      ErrorUtil.error(e.getMessage());
+    }
+  }
+
   public static void main(String[] args) {
     if (args.length == 0) {
       Options.help(true);
@@ -215,6 +300,12 @@ public class TreeShaker {
       exitOnErrorsOrWarnings(treatWarningsAsErrors);
       CodeReferenceMap unusedCodeMap = finder.getUnusedCode(loadRootSetMap(options));
       writeToFile("tree-shaker-report.txt", unusedCodeMap);
+      if (options.getFinalMethodsReportFile() != null) {
+        CodeReferenceMap finalMethodsMap = finder.getEffectivelyFinalMethods();
+        if (finalMethodsMap != null) {
+          writeProGuardMethodsToFile(options.getFinalMethodsReportFile(), finalMethodsMap);
+        }
+      }
     } catch (IOException e) {
       ErrorUtil.error(e.getMessage());
     }
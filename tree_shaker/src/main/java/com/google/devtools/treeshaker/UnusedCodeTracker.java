@@ -15,7 +15,9 @@
 package com.google.devtools.treeshaker;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Table;
 import com.google.devtools.j2objc.util.CodeReferenceMap;
 import com.google.devtools.j2objc.util.CodeReferenceMap.Builder;
@@ -25,8 +27,13 @@ import com.google.devtools.j2objc.util.TranslationEnvironment;
 import com.google.devtools.treeshaker.ElementReferenceMapper.ClassReferenceNode;
 import com.google.devtools.treeshaker.ElementReferenceMapper.MethodReferenceNode;
 import com.google.devtools.treeshaker.ElementReferenceMapper.ReferenceNode;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
@@ -45,6 +52,25 @@ public class UnusedCodeTracker {
   private final Set<String> rootSet = new HashSet<String>();
   private final Set<MethodReferenceNode> declaredSet = new HashSet<MethodReferenceNode>();
 
+  // The call graph of the method nodes, numbered by their index in methodNodes. Edges to the
+  // methods without nodes are negative, indexing unknownMethodIDs from -1. Built when first
+  // traversed, so that it includes the mapped overriding methods.
+  private MethodReferenceNode[] methodNodes;
+  private TypeElement[] declaringTypes;
+  private int[][] successors;
+  private int[][] overriders;
+  private HashMap<String, Integer> methodIndexes;
+  private final List<String> unknownMethodIDs = new ArrayList<String>();
+  private int[] worklist = new int[16];
+  private int worklistSize = 0;
+
+  // With rapid type analysis, an overriding method is only reachable once its declaring type or
+  // one of its subtypes is instantiated by a reachable method. The overriding methods of types
+  // that aren't instantiated yet wait in pendingOverriders.
+  private boolean rapidTypeAnalysis = false;
+  private final Set<TypeElement> instantiatedTypes = new HashSet<TypeElement>();
+  private final ListMultimap<TypeElement, Integer> pendingOverriders = ArrayListMultimap.create();
+
   public UnusedCodeTracker(TranslationEnvironment env, HashMap<String, ReferenceNode> 
       elementReferenceMap, Set<String> staticSet, HashMap<String, Set<String>> overrideMap) {
     Preconditions.checkNotNull(env);
@@ -57,36 +83,79 @@ public class UnusedCodeTracker {
     this.overrideMap = overrideMap;
   }
 
+  /**
+   * Enables rapid type analysis, which only follows calls to overriding methods of types that are
+   * instantiated by reachable code, by root constructors, or are enums. Types that are only
+   * instantiated by reflection need a root constructor.
+   */
+  public void setRapidTypeAnalysis(boolean rapidTypeAnalysis) {
+    this.rapidTypeAnalysis = rapidTypeAnalysis;
+  }
+
   /**
    * Since the MethodInvocation node cannot currently detect invocations of overriding methods,
    * (it only detects the top-level method being invoked), this method allows treeshaker to track
    * which methods are being overridden. For all relevant methods (that are declared but not
-   * invoked), checks all other methods with the same overrideID in the overrideMap, and compares
-   * each pair with the ElementUtil.overrides method. 
+   * invoked), looks up the methods with the same overrideID in each supertype of the declaring
+   * class, and compares each pair with the ElementUtil.overrides method. Methods are indexed by
+   * type and overrideID, and each type's supertypes are only collected once, so the time is
+   * proportional to the size of the type hierarchy rather than to the number of methods that
+   * share a name.
    */
   public void mapOverridingMethods() {
-    for (String key : elementReferenceMap.keySet()) {
-      ReferenceNode node = elementReferenceMap.get(key);
+    Map<TypeElement, Map<String, MethodReferenceNode>> methodsByType = new HashMap<>();
+    for (ReferenceNode node : elementReferenceMap.values()) {
       if (node instanceof MethodReferenceNode) {
         MethodReferenceNode methodNode = (MethodReferenceNode) node;
         if (methodNode.declared && !methodNode.invoked) {
           declaredSet.add(methodNode);
         }
+        methodsByType
+            .computeIfAbsent(ElementUtil.getDeclaringClass(methodNode.methodElement),
+                type -> new HashMap<>())
+            .put(ElementReferenceMapper.stitchOverrideMethodIdentifier(
+                methodNode.methodElement, env.typeUtil()), methodNode);
       }
     }
 
+    Map<TypeElement, Set<TypeElement>> supertypesCache = new HashMap<>();
     for (MethodReferenceNode derivedNode : declaredSet) {
+      TypeElement declaringClass = ElementUtil.getDeclaringClass(derivedNode.methodElement);
       String overrideID = ElementReferenceMapper.stitchOverrideMethodIdentifier(
           derivedNode.methodElement, env.typeUtil());
-      assert(overrideMap.get(overrideID) != null);
-      for (String otherID : overrideMap.get(overrideID)) {
-        MethodReferenceNode baseNode = ((MethodReferenceNode) elementReferenceMap.get(otherID));
-        if (env.elementUtil().overrides(derivedNode.methodElement, baseNode.methodElement,
-            ElementUtil.getDeclaringClass(derivedNode.methodElement))) {
+      for (TypeElement supertype : getSupertypes(declaringClass, supertypesCache)) {
+        Map<String, MethodReferenceNode> methods = methodsByType.get(supertype);
+        MethodReferenceNode baseNode = methods != null ? methods.get(overrideID) : null;
+        if (baseNode != null && env.elementUtil().overrides(
+            derivedNode.methodElement, baseNode.methodElement, declaringClass)) {
           baseNode.overridingMethods.add(derivedNode.getUniqueID());
         }
       }
     }
+    successors = null;
+  }
+
+  /**
+   * Returns all the superclasses and interfaces of a type, collecting those of each type in the
+   * hierarchy once.
+   */
+  private static Set<TypeElement> getSupertypes(
+      TypeElement type, Map<TypeElement, Set<TypeElement>> cache) {
+    Set<TypeElement> supertypes = cache.get(type);
+    if (supertypes == null) {
+      supertypes = new LinkedHashSet<TypeElement>();
+      TypeElement superclass = ElementUtil.getSuperclass(type);
+      if (superclass != null) {
+        supertypes.add(superclass);
+        supertypes.addAll(getSupertypes(superclass, cache));
+      }
+      for (TypeElement intrface : ElementUtil.getInterfaces(type)) {
+        supertypes.add(intrface);
+        supertypes.addAll(getSupertypes(intrface, cache));
+      }
+      cache.put(type, supertypes);
+    }
+    return supertypes;
   }
 
   /**
@@ -155,29 +224,135 @@ public class UnusedCodeTracker {
   /**
    * Traverses the method invocation graph created by ElementReferenceMapper, and marks all methods
    * that are reachable from the inputRootSet. Also covers all methods that possibly override these
-   * called methods.
+   * called methods. The graph is walked with a worklist, since call chains can be deeper than the
+   * stack allows.
    * @param methodID
    */
   public void traverseMethod(String methodID) {
-    MethodReferenceNode node = (MethodReferenceNode) elementReferenceMap.get(methodID);
-    if (node == null) {
-      //TODO(malvania): This might never be reached, because we create a node for every method,
-      //                both invoked and declared.
-      ErrorUtil.warning("Encountered .class method while accessing: " + methodID);
+    if (successors == null) {
+      buildCallGraph();
+    }
+    int index = getMethodIndex(methodID);
+    if (rapidTypeAnalysis && index >= 0
+        && ElementUtil.isConstructor(methodNodes[index].methodElement)) {
+      instantiate(declaringTypes[index]);
+    }
+    push(index);
+    while (worklistSize > 0) {
+      index = worklist[--worklistSize];
+      if (index < 0) {
+        //TODO(malvania): This might never be reached, because we create a node for every method,
+        //                both invoked and declared.
+        ErrorUtil.warning(
+            "Encountered .class method while accessing: " + unknownMethodIDs.get(-index - 1));
+        continue;
+      }
+      MethodReferenceNode node = methodNodes[index];
+      if (node.reachable) {
+        continue;
+      }
+      node.reachable = true;
+      markParentClasses(declaringTypes[index]);
+
+      if (rapidTypeAnalysis) {
+        for (TypeElement type : node.instantiatedTypes) {
+          instantiate(type);
+        }
+      }
+      for (int successor : successors[index]) {
+        push(successor);
+      }
+      for (int overrider : overriders[index]) {
+        if (!rapidTypeAnalysis || instantiatedTypes.contains(declaringTypes[overrider])) {
+          push(overrider);
+        } else {
+          pendingOverriders.put(declaringTypes[overrider], overrider);
+        }
+      }
+    }
+  }
+
+  private void push(int index) {
+    if (index >= 0 && methodNodes[index].reachable) {
       return;
     }
-    if (node.reachable) {
+    if (worklistSize == worklist.length) {
+      worklist = Arrays.copyOf(worklist, worklistSize * 2);
+    }
+    worklist[worklistSize++] = index;
+  }
+
+  /**
+   * Records that a type and its supertypes have an instance, and queues the overriding methods of
+   * those types that were waiting for one.
+   */
+  private void instantiate(TypeElement type) {
+    if (type == null || !instantiatedTypes.add(type)) {
       return;
     }
-    node.reachable = true;
-    markParentClasses(ElementUtil.getDeclaringClass(node.methodElement));
+    for (int overrider : pendingOverriders.removeAll(type)) {
+      push(overrider);
+    }
+    instantiate(ElementUtil.getSuperclass(type));
+    for (TypeElement intrface : ElementUtil.getInterfaces(type)) {
+      instantiate(intrface);
+    }
+  }
 
-    for (String invokedMethodID : node.invokedMethods) {
-      traverseMethod(invokedMethodID);
+  /**
+   * Numbers the method nodes, and converts their invoked and overriding method IDs into arrays of
+   * node indexes, so that the traversal doesn't hash the IDs of every edge.
+   */
+  private void buildCallGraph() {
+    List<MethodReferenceNode> nodes = new ArrayList<MethodReferenceNode>();
+    methodIndexes = new HashMap<String, Integer>();
+    for (Map.Entry<String, ReferenceNode> entry : elementReferenceMap.entrySet()) {
+      ReferenceNode node = entry.getValue();
+      if (node instanceof MethodReferenceNode) {
+        methodIndexes.put(entry.getKey(), nodes.size());
+        nodes.add((MethodReferenceNode) node);
+      } else if (rapidTypeAnalysis && node instanceof ClassReferenceNode
+          && isImplicitlyInstantiated(((ClassReferenceNode) node).classElement)) {
+        instantiate(((ClassReferenceNode) node).classElement);
+      }
     }
-    for (String overrideMethodID : node.overridingMethods) {
-      traverseMethod(overrideMethodID);
+    methodNodes = nodes.toArray(new MethodReferenceNode[nodes.size()]);
+    declaringTypes = new TypeElement[methodNodes.length];
+    successors = new int[methodNodes.length][];
+    overriders = new int[methodNodes.length][];
+    for (int i = 0; i < methodNodes.length; i++) {
+      MethodReferenceNode node = methodNodes[i];
+      declaringTypes[i] = ElementUtil.getDeclaringClass(node.methodElement);
+      successors[i] = getMethodIndexes(node.invokedMethods);
+      overriders[i] = getMethodIndexes(node.overridingMethods);
+    }
+  }
+
+  /**
+   * Returns whether instances of a type are created without a constructor invocation. Enum
+   * constants, including those with bodies, are created when the enum is initialized.
+   */
+  private static boolean isImplicitlyInstantiated(TypeElement type) {
+    TypeElement superclass = ElementUtil.getSuperclass(type);
+    return ElementUtil.isEnum(type) || (superclass != null && ElementUtil.isEnum(superclass));
+  }
+
+  private int[] getMethodIndexes(Set<String> methodIDs) {
+    int[] indexes = new int[methodIDs.size()];
+    int n = 0;
+    for (String methodID : methodIDs) {
+      indexes[n++] = getMethodIndex(methodID);
+    }
+    return indexes;
+  }
+
+  private int getMethodIndex(String methodID) {
+    Integer index = methodIndexes.get(methodID);
+    if (index != null) {
+      return index;
     }
+    unknownMethodIDs.add(methodID);
+    return -unknownMethodIDs.size();
   }
 
   /**
@@ -211,4 +386,47 @@ public class UnusedCodeTracker {
     }
     return treeShakerMap.build();
   }
+
+  /**
+   * Returns the declared instance methods that aren't overridden by any other declared method,
+   * which in a closed world can be called directly instead of dispatched. Methods of interfaces
+   * and abstract methods are never included, since they have no single implementation. Overrides
+   * are checked against every declared method with the same name, since override IDs are erased
+   * signatures, so mapOverridingMethods misses overrides of generic methods.
+   */
+  public CodeReferenceMap buildEffectivelyFinalMap() {
+    ListMultimap<String, MethodReferenceNode> methodsByName = ArrayListMultimap.create();
+    for (ReferenceNode node : elementReferenceMap.values()) {
+      if (node instanceof MethodReferenceNode && ((MethodReferenceNode) node).declared) {
+        MethodReferenceNode methodNode = (MethodReferenceNode) node;
+        methodsByName.put(methodNode.methodElement.getSimpleName().toString(), methodNode);
+      }
+    }
+
+    Builder finalMethodsMap = CodeReferenceMap.builder();
+    for (MethodReferenceNode methodNode : methodsByName.values()) {
+      if (isEffectivelyFinal(methodNode.methodElement,
+          methodsByName.get(methodNode.methodElement.getSimpleName().toString()))) {
+        methodNode.addToBuilder(finalMethodsMap);
+      }
+    }
+    return finalMethodsMap.build();
+  }
+
+  private boolean isEffectivelyFinal(ExecutableElement method,
+      Iterable<MethodReferenceNode> sameNameMethods) {
+    if (ElementUtil.isStatic(method) || ElementUtil.isPrivate(method)
+        || ElementUtil.isConstructor(method) || ElementUtil.isAbstract(method)
+        || ElementUtil.isInterface(ElementUtil.getDeclaringClass(method))
+        || ElementUtil.isAnnotationType(ElementUtil.getDeclaringClass(method))) {
+      return false;
+    }
+    for (MethodReferenceNode other : sameNameMethods) {
+      if (other.methodElement != method && env.elementUtil().overrides(other.methodElement, method,
+          ElementUtil.getDeclaringClass(other.methodElement))) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
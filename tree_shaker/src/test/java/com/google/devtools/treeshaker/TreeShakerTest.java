@@ -15,12 +15,16 @@
 package com.google.devtools.treeshaker;
 
 import com.google.common.base.Joiner;
+import com.google.common.io.CharSource;
 import com.google.common.io.Files;
 import com.google.devtools.j2objc.util.CodeReferenceMap;
 import com.google.devtools.j2objc.util.CodeReferenceMap.Builder;
 import com.google.devtools.j2objc.util.ErrorUtil;
+import com.google.devtools.j2objc.util.ProGuardUsageParser;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
@@ -57,11 +61,11 @@ public class TreeShakerTest extends TestCase {
   }
 
   private CodeReferenceMap getUnusedCode(CodeReferenceMap rootSetMap) throws IOException {
-    Options options = new Options();
-    options.setSourceFiles(inputFiles);
-    options.setClasspath(System.getProperty("java.class.path"));
+    return getUnusedCode(createTreeShaker(), rootSetMap);
+  }
 
-    TreeShaker shaker = new TreeShaker(options);
+  private CodeReferenceMap getUnusedCode(TreeShaker shaker, CodeReferenceMap rootSetMap)
+      throws IOException {
     CodeReferenceMap map = shaker.getUnusedCode(rootSetMap);
 
     if (ErrorUtil.errorCount() > 0) {
@@ -70,6 +74,19 @@ public class TreeShakerTest extends TestCase {
     return map;
   }
 
+  private CodeReferenceMap getEffectivelyFinalMethods() throws IOException {
+    TreeShaker shaker = createTreeShaker();
+    getUnusedCode(shaker, null);
+    return shaker.getEffectivelyFinalMethods();
+  }
+
+  private TreeShaker createTreeShaker() throws IOException {
+    Options options = new Options();
+    options.setSourceFiles(inputFiles);
+    options.setClasspath(System.getProperty("java.class.path"));
+    return new TreeShaker(options);
+  }
+
   public void testUnusedCodeAcrossFiles() throws IOException {
     addSourceFile("A.java", "class A { static { launch(); }\n"
         + "public static void launch() { new B().abc(\"zoo\"); } }");
@@ -113,6 +130,35 @@ public class TreeShakerTest extends TestCase {
     assertTrue(unusedCodeMap.containsMethod("C", "xyz", "(Ljava/lang/String;)V"));
   }
 
+  public void testEffectivelyFinalMethods() throws IOException {
+    addSourceFile("A.java", "class A<T> { public void foo(T t) {} public void bar() {}\n"
+        + "public static void baz() {} private void qux() {} }");
+    addSourceFile("B.java", "class B extends A<String> { public void foo(String s) {}\n"
+        + "public int[] abc(String[] s, long l) { return null; } }");
+    addSourceFile("C.java", "abstract class C implements Runnable { abstract void xyz(); }");
+    addSourceFile("D.java", "interface D { default void def() {} }");
+    CodeReferenceMap finalMethods = getEffectivelyFinalMethods();
+
+    assertTrue(finalMethods.containsMethod("A", "bar", "()V"));
+    assertTrue(finalMethods.containsMethod("B", "foo", "(Ljava/lang/String;)V"));
+    assertTrue(finalMethods.containsMethod("B", "abc", "([Ljava/lang/String;J)[I"));
+    // Overridden through a generic supertype.
+    assertFalse(finalMethods.containsMethod("A", "foo", "(Ljava/lang/Object;)V"));
+    assertFalse(finalMethods.containsMethod("A", "baz", "()V"));
+    assertFalse(finalMethods.containsMethod("A", "qux", "()V"));
+    assertFalse(finalMethods.containsMethod("C", "xyz", "()V"));
+    assertFalse(finalMethods.containsMethod("D", "def", "()V"));
+
+    StringWriter report = new StringWriter();
+    BufferedWriter writer = new BufferedWriter(report);
+    TreeShaker.writeProGuardMethods(writer, finalMethods);
+    writer.close();
+    CodeReferenceMap parsed = ProGuardUsageParser.parse(CharSource.wrap(report.toString()));
+    assertTrue(parsed.containsMethod("A", "bar", "()V"));
+    assertTrue(parsed.containsMethod("B", "abc", "([Ljava/lang/String;J)[I"));
+    assertFalse(parsed.containsMethod("A", "foo", "(Ljava/lang/Object;)V"));
+  }
+
   private void addSourceFile(String fileName, String source) throws IOException {
     File file = new File(tempDir, fileName);
     file.getParentFile().mkdirs();
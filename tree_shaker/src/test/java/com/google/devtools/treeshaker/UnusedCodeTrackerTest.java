@@ -177,6 +177,108 @@ public class UnusedCodeTrackerTest  extends GenerationTest {
     assertTrue(unusedCodeMap.containsMethod("A$C", "xyz", "(Ljava/lang/String;)V"));
   }
 
+  public void testDeepCallChain() throws IOException {
+    // Deeper than a recursive traversal's stack allows.
+    int depth = 10000;
+    StringBuilder source = new StringBuilder("class A {\n");
+    for (int i = 0; i < depth; i++) {
+      source.append("  private static void m" + i + "() {m" + (i + 1) + "();}\n");
+    }
+    source.append("  private static void m" + depth + "() {}\n");
+    source.append("  private static void unused() {m0();}\n");
+    source.append("  static { m0(); }\n");
+    source.append("}\n");
+
+    CompilationUnit unit = compileType("test", source.toString());
+    final HashMap<String, ReferenceNode> elementMap = new HashMap<>();
+    final HashMap<String, Set<String>> overrideMap = new HashMap<>();
+    final Set<String> staticSet = new HashSet<>();
+    ElementReferenceMapper mapper = new ElementReferenceMapper(unit, elementMap, staticSet,
+        overrideMap);
+    mapper.run();
+    UnusedCodeTracker tracker = new UnusedCodeTracker(unit.getEnv(), elementMap, staticSet,
+        overrideMap);
+    tracker.markUsedElements();
+
+    assertTrue(elementMap.get(ElementReferenceMapper
+        .stitchMethodIdentifier("A", "m0", "()V")).reachable);
+    assertTrue(elementMap.get(ElementReferenceMapper
+        .stitchMethodIdentifier("A", "m" + depth, "()V")).reachable);
+    assertFalse(elementMap.get(ElementReferenceMapper
+        .stitchMethodIdentifier("A", "unused", "()V")).reachable);
+  }
+
+  public void testOverridingMethodsOfSupertypes() throws IOException {
+    String source = "class A {\n"
+        + "  interface I { void run(); }\n"
+        + "  static class B implements I { public void run() {} }\n"
+        + "  static class C extends B { public void run() {} }\n"
+        + "  static class D { public void run() {} }\n"
+        + "  static void go(I i) { i.run(); }\n"
+        + "  static { go(new C()); }\n"
+        + "}\n";
+
+    CompilationUnit unit = compileType("test", source);
+    final HashMap<String, ReferenceNode> elementMap = new HashMap<>();
+    final HashMap<String, Set<String>> overrideMap = new HashMap<>();
+    final Set<String> staticSet = new HashSet<>();
+    ElementReferenceMapper mapper = new ElementReferenceMapper(unit, elementMap, staticSet,
+        overrideMap);
+    mapper.run();
+    UnusedCodeTracker tracker = new UnusedCodeTracker(unit.getEnv(), elementMap, staticSet,
+        overrideMap);
+    tracker.mapOverridingMethods();
+    tracker.markUsedElements();
+
+    assertTrue(elementMap.get(ElementReferenceMapper
+        .stitchMethodIdentifier("A$B", "run", "()V")).reachable);
+    assertTrue(elementMap.get(ElementReferenceMapper
+        .stitchMethodIdentifier("A$C", "run", "()V")).reachable);
+    assertFalse(elementMap.get(ElementReferenceMapper
+        .stitchMethodIdentifier("A$D", "run", "()V")).reachable);
+  }
+
+  public void testRapidTypeAnalysis() throws IOException {
+    String source = "class A {\n"
+        + "  static abstract class Shape { abstract int area(); }\n"
+        + "  static class Square extends Shape { int area() { return 1; } }\n"
+        + "  static class Circle extends Shape { int area() { return 2; } }\n"
+        + "  static class Triangle extends Shape { int area() { return 3; } }\n"
+        + "  static int total(Shape s) { return s.area(); }\n"
+        + "  static void run() {\n"
+        + "    total(new Square());\n"
+        + "    java.util.function.Supplier<Shape> triangles = Triangle::new;\n"
+        + "    total(triangles.get());\n"
+        + "  }\n"
+        + "  static void unused() { total(new Circle()); }\n"
+        + "  static { run(); }\n"
+        + "}\n";
+
+    CompilationUnit unit = compileType("test", source);
+    final HashMap<String, ReferenceNode> elementMap = new HashMap<>();
+    final HashMap<String, Set<String>> overrideMap = new HashMap<>();
+    final Set<String> staticSet = new HashSet<>();
+    ElementReferenceMapper mapper = new ElementReferenceMapper(unit, elementMap, staticSet,
+        overrideMap);
+    mapper.run();
+    UnusedCodeTracker tracker = new UnusedCodeTracker(unit.getEnv(), elementMap, staticSet,
+        overrideMap);
+    tracker.setRapidTypeAnalysis(true);
+    tracker.mapOverridingMethods();
+    tracker.markUsedElements();
+
+    assertTrue(elementMap.get(ElementReferenceMapper
+        .stitchMethodIdentifier("A$Shape", "area", "()I")).reachable);
+    assertTrue(elementMap.get(ElementReferenceMapper
+        .stitchMethodIdentifier("A$Square", "area", "()I")).reachable);
+    // Triangle is only instantiated through a constructor reference.
+    assertTrue(elementMap.get(ElementReferenceMapper
+        .stitchMethodIdentifier("A$Triangle", "area", "()I")).reachable);
+    // Circle is only instantiated by an unused method.
+    assertFalse(elementMap.get(ElementReferenceMapper
+        .stitchMethodIdentifier("A$Circle", "area", "()I")).reachable);
+  }
+
   //TODO(malvania): Enable testing for unused fields when ElementUtil glitch is fixed and fields
   //                are tracked again. (See ElementReferenceMapper line 183, fields comment.)
   //public void testUnusedField() throws IOException {